@@ -30,6 +30,11 @@ public class Orgs {
       "_providerConfig.orgs.config.defaultApplicationUri";
   public static final String ORG_CONFIG_SCIM_ENABLED_KEY =
       "_providerConfig.orgs.config.scimEnabled";
+  public static final String ORG_CONFIG_TRUST_TOKEN_ORG_ROLES_ENABLED_KEY =
+      "_providerConfig.orgs.config.trustTokenOrgRolesEnabled";
+  public static final String ORG_CONFIG_TRUST_TOKEN_ORG_ROLES_MAX_AGE_KEY =
+      "_providerConfig.orgs.config.trustTokenOrgRolesMaxAgeInSecs";
+  public static final int ORG_CONFIG_TRUST_TOKEN_ORG_ROLES_MAX_AGE_DEFAULT = 60;
   public static final String ORG_VALIDATION_PENDING_CONFIG_KEY =
       "home.idp.discovery.validationPending";
   public static final String ORG_SHARED_IDP_KEY = "home.idp.discovery.shared";
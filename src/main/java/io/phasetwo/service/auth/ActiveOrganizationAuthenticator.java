@@ -1,15 +1,14 @@
 package io.phasetwo.service.auth;
 
-import static io.phasetwo.service.Orgs.ACTIVE_ORGANIZATION;
 import static org.keycloak.authentication.AuthenticationProcessor.CURRENT_FLOW_PATH;
 
 import com.google.common.collect.MoreCollectors;
 import io.phasetwo.service.model.OrganizationModel;
 import io.phasetwo.service.model.OrganizationProvider;
+import io.phasetwo.service.util.ActiveOrganization;
 import jakarta.ws.rs.core.MultivaluedMap;
 import jakarta.ws.rs.core.Response;
 import jakarta.ws.rs.core.UriInfo;
-import java.util.Collections;
 import java.util.List;
 import java.util.Optional;
 import lombok.extern.jbosslog.JBossLog;
@@ -138,9 +137,8 @@ public class ActiveOrganizationAuthenticator implements Authenticator {
   private void updateActiveOrganizationAttributeAndSucceedChallenge(
       AuthenticationFlowContext context, String organizationIdFromHint) {
     log.debugf("Authentication Challenge Success");
-    context
-        .getUser()
-        .setAttribute(ACTIVE_ORGANIZATION, Collections.singletonList(organizationIdFromHint));
+    ActiveOrganization.setActiveOrganizationId(
+        context.getSession(), context.getRealm(), context.getUser(), organizationIdFromHint);
     context.success();
   }
 
@@ -2,8 +2,8 @@ package io.phasetwo.service.auth;
 
 import static io.phasetwo.service.Orgs.ACTIVE_ORGANIZATION;
 
-import io.phasetwo.service.model.OrganizationModel;
 import io.phasetwo.service.model.OrganizationProvider;
+import io.phasetwo.service.util.ActiveOrganization;
 import java.util.Map;
 import lombok.extern.jbosslog.JBossLog;
 import org.keycloak.authentication.AuthenticationFlowContext;
@@ -33,18 +33,14 @@ public class ConditionalOrgAttributeValue implements ConditionalAuthenticator {
     boolean match = false;
     OrganizationProvider orgs = context.getSession().getProvider(OrganizationProvider.class);
     if (!allOrgs) {
-      match =
-          context
-              .getUser()
-              .getAttributeStream(ACTIVE_ORGANIZATION)
-              .findFirst()
-              .map(
-                  orgId -> {
-                    OrganizationModel o = orgs.getOrganizationById(context.getRealm(), orgId);
-                    return o.hasMembership(context.getUser())
-                        && o.hasAttribute(attributeName, attributeValue);
-                  })
-              .orElse(false);
+      if (context.getUser().getFirstAttribute(ACTIVE_ORGANIZATION) != null) {
+        ActiveOrganization active =
+            ActiveOrganization.fromContext(
+                context.getSession(), context.getRealm(), context.getUser());
+        match =
+            active.hasActiveMembership()
+                && active.getOrganization().hasAttribute(attributeName, attributeValue);
+      }
     } else {
       match =
           orgs.getUserOrganizationsStream(context.getRealm(), context.getUser())
@@ -9,9 +9,11 @@ import io.phasetwo.service.model.InvitationModel;
 import io.phasetwo.service.model.OrganizationModel;
 import io.phasetwo.service.model.OrganizationProvider;
 import io.phasetwo.service.model.OrganizationRoleModel;
+import io.phasetwo.service.model.ResolvedOrganization;
 import io.phasetwo.service.util.Domains;
 import io.phasetwo.service.util.IdentityProviders;
 import java.util.Map;
+import java.util.stream.Collectors;
 import lombok.extern.jbosslog.JBossLog;
 import org.keycloak.authentication.AuthenticationFlowContext;
 import org.keycloak.authentication.Authenticator;
@@ -56,28 +58,28 @@ public class OrgAddUserAuthenticatorFactory extends BaseAuthenticatorFactory
     var idpIsShared = Boolean.parseBoolean(idpConfig.getOrDefault(ORG_SHARED_IDP_KEY, "false"));
 
     if (idpConfig.containsKey(ORG_OWNER_CONFIG_KEY)) {
+      RealmModel realm = context.getRealm();
+      UserModel user = context.getUser();
       OrganizationProvider orgs = context.getSession().getProvider(OrganizationProvider.class);
       var orgIds = IdentityProviders.getAttributeMultivalued(idpConfig, ORG_OWNER_CONFIG_KEY);
+      Map<String, ResolvedOrganization> resolved =
+          orgs.resolveOrganizationsStream(realm, orgIds, user)
+              .collect(Collectors.toMap(ResolvedOrganization::getOrganizationId, o -> o));
 
       orgIds.forEach(
           orgId -> {
-            OrganizationModel org = orgs.getOrganizationById(context.getRealm(), orgId);
+            ResolvedOrganization org = resolved.get(orgId);
             if (org == null) {
               log.debugf(
                   "idpConfig %s contained %s, but org not found", ORG_OWNER_CONFIG_KEY, orgId);
               return;
             }
 
-            handleOrganizationMembership(context, org, idpIsShared);
-
-            if (org.hasMembership(context.getUser())) {
-              orgs.getUserInvitationsStream(context.getRealm(), context.getUser())
-                  .filter(
-                      invitationModel ->
-                          invitationModel.getOrganization().getId().equals(org.getId()))
+            if (org.isMember() || handleOrganizationMembership(context, org, idpIsShared)) {
+              orgs.getOrganizationInvitationsStream(realm, orgId, user.getEmail())
                   .forEach(
                       invitationModel -> {
-                        addRolesFromInvitation(invitationModel, context.getUser());
+                        addRolesFromInvitation(invitationModel, user);
 
                         invitationModel.getOrganization().revokeInvitation(invitationModel.getId());
                         context
@@ -86,7 +88,7 @@ public class OrgAddUserAuthenticatorFactory extends BaseAuthenticatorFactory
                             .event(IDENTITY_PROVIDER_POST_LOGIN)
                             .detail("org_id", invitationModel.getOrganization().getId())
                             .detail("invitation_id", invitationModel.getId())
-                            .user(context.getUser())
+                            .user(user)
                             .error("User invitation revoked.");
                       });
             }
@@ -96,35 +98,37 @@ public class OrgAddUserAuthenticatorFactory extends BaseAuthenticatorFactory
     }
   }
 
-  private static void handleOrganizationMembership(
-      AuthenticationFlowContext context, OrganizationModel org, boolean idpIsShared) {
-    if (!org.hasMembership(context.getUser()) && !idpIsShared) {
-      log.debugf(
-          "granting membership to %s for user %s", org.getName(), context.getUser().getUsername());
-      org.grantMembership(context.getUser());
-      context
-          .getEvent()
-          .clone()
-          .user(context.getUser())
-          .detail("joined_organization", org.getId())
-          .success();
-    }
-
-    if (!org.hasMembership(context.getUser()) && idpIsShared) {
+  /**
+   * Grants membership to a user who isn't a member yet, if the IdP isn't shared or the organization
+   * owns the user's email domain.
+   *
+   * @return whether membership was granted
+   */
+  private static boolean handleOrganizationMembership(
+      AuthenticationFlowContext context, ResolvedOrganization org, boolean idpIsShared) {
+    OrganizationProvider orgs = context.getSession().getProvider(OrganizationProvider.class);
+    if (idpIsShared) {
       var userDomain = Domains.extract(context.getUser().getEmail());
-      if (userDomain.isPresent() && Domains.supportsDomain(org.getDomains(), userDomain.get())) {
-        log.debugf(
-            "granting membership to %s for user %s",
-            org.getName(), context.getUser().getUsername());
-        org.grantMembership(context.getUser());
-        context
-            .getEvent()
-            .clone()
-            .user(context.getUser())
-            .detail("joined_organization", org.getId())
-            .success();
+      if (userDomain.isEmpty()
+          || !orgs.getDomainRoutes(context.getRealm(), userDomain.get())
+              .isOwnedBy(org.getOrganizationId(), userDomain.get(), false)) {
+        return false;
       }
     }
+    OrganizationModel organization =
+        orgs.getOrganizationById(context.getRealm(), org.getOrganizationId());
+    if (organization == null) return false;
+    log.debugf(
+        "granting membership to %s for user %s",
+        org.getOrganizationName(), context.getUser().getUsername());
+    organization.grantMembership(context.getUser());
+    context
+        .getEvent()
+        .clone()
+        .user(context.getUser())
+        .detail("joined_organization", org.getOrganizationId())
+        .success();
+    return true;
   }
 
   void addRolesFromInvitation(InvitationModel invitation, UserModel user) {
@@ -5,14 +5,13 @@ import static io.phasetwo.service.Orgs.REQUIRE_VERIFIED_DOMAIN;
 import static org.keycloak.provider.ProviderConfigProperty.BOOLEAN_TYPE;
 
 import com.google.auto.service.AutoService;
-import io.phasetwo.service.model.OrganizationModel;
+import io.phasetwo.service.model.DomainRoutes;
 import io.phasetwo.service.model.OrganizationProvider;
 import io.phasetwo.service.util.Domains;
 import io.phasetwo.service.util.IdentityProviders;
 import jakarta.ws.rs.core.Response;
 import java.util.List;
 import java.util.Map;
-import java.util.Objects;
 import java.util.Optional;
 import lombok.extern.jbosslog.JBossLog;
 import org.keycloak.authentication.AuthenticationFlowContext;
@@ -90,12 +89,10 @@ public class OrgIdpDomainVerifierAuthenticatorFactory extends BaseAuthenticatorF
     var requireVerifiedDomain = requireVerifiedDomain(context.getAuthenticatorConfig());
 
     OrganizationProvider orgs = context.getSession().getProvider(OrganizationProvider.class);
+    DomainRoutes routes = orgs.getDomainRoutes(context.getRealm(), identityEmailDomain.get());
     var orgIds = IdentityProviders.getAttributeMultivalued(idpConfig, ORG_OWNER_CONFIG_KEY);
     orgIds.stream()
-        .map(orgId -> orgs.getOrganizationById(context.getRealm(), orgId))
-        .filter(Objects::nonNull)
-        .filter(org -> Domains.supportsDomain(org.getDomains(), identityEmailDomain.get()))
-        .filter(org -> isVerifiedDomain(org, requireVerifiedDomain, identityEmailDomain.get()))
+        .filter(orgId -> routes.isOwnedBy(orgId, identityEmailDomain.get(), requireVerifiedDomain))
         .findFirst()
         .ifPresentOrElse(
             (value) -> context.success(),
@@ -110,15 +107,6 @@ public class OrgIdpDomainVerifierAuthenticatorFactory extends BaseAuthenticatorF
             });
   }
 
-  private boolean isVerifiedDomain(
-      OrganizationModel org, boolean requireVerifiedDomain, String identityEmailDomain) {
-    if (requireVerifiedDomain) {
-      var domain = org.getDomain(identityEmailDomain);
-      return domain.isVerified();
-    }
-    return true;
-  }
-
   @Override
   public boolean requiresUser() {
     return true;
@@ -0,0 +1,125 @@
+package io.phasetwo.service.auth.idp.discovery;
+
+import org.jboss.logging.Logger;
+import org.keycloak.authentication.AuthenticationFlowContext;
+import org.keycloak.models.FederatedIdentityModel;
+import org.keycloak.models.IdentityProviderModel;
+import org.keycloak.models.KeycloakSession;
+import org.keycloak.models.RealmModel;
+import org.keycloak.models.UserModel;
+
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Picks the home IdPs of a user from the IdPs matching the user's domain or attribute, in stages
+ * that stop at the first one with a result:
+ * <ol>
+ *     <li>linked IdPs with matching domain, checked one federated identity at a time,</li>
+ *     <li>linked IdPs without matching domain, only now loading all federated identities of the user,</li>
+ *     <li>not linked IdPs with matching domain.</li>
+ * </ol>
+ * Counts how many discoveries each stage resolved; the counts are reported in the server info of
+ * the discoverer.
+ */
+public final class HomeIdpDiscoveryStages {
+
+    private static final Logger LOG = Logger.getLogger(HomeIdpDiscoveryStages.class);
+
+    public enum Stage {
+        LINKED_MATCHING("linked", "matching"),
+        LINKED_NON_MATCHING("linked", "non-matching"),
+        NOT_LINKED_MATCHING("non-linked", "matching"),
+        NONE("no", "matching");
+
+        private final String idpQualifier;
+        private final String domainQualifier;
+
+        Stage(String idpQualifier, String domainQualifier) {
+            this.idpQualifier = idpQualifier;
+            this.domainQualifier = domainQualifier;
+        }
+    }
+
+    private final Map<Stage, LongAdder> resolved = new EnumMap<>(Stage.class);
+
+    public HomeIdpDiscoveryStages() {
+        for (Stage stage : Stage.values()) {
+            resolved.put(stage, new LongAdder());
+        }
+    }
+
+    /**
+     * @param user the local user, or {@code null}
+     * @param forwardToLinkedIdp whether linked IdPs are preferred
+     * @param matching enabled IdPs with matching domain or attribute
+     * @param linkedCandidates enabled IdPs among the given aliases of the user's linked IdPs
+     * @param subject the domain or attribute value, for logging
+     */
+    public List<IdentityProviderModel> discover(AuthenticationFlowContext context, UserModel user,
+                                                boolean forwardToLinkedIdp, List<IdentityProviderModel> matching,
+                                                Function<Set<String>, List<IdentityProviderModel>> linkedCandidates,
+                                                Object subject) {
+        if (user == null || !forwardToLinkedIdp) {
+            LOG.tracef("User '%s' is not stored locally or forwarding to linked IdP is disabled. Skipping discovery of linked IdPs.",
+                subject);
+            return resolve(matching.isEmpty() ? Stage.NONE : Stage.NOT_LINKED_MATCHING, matching, subject);
+        }
+
+        KeycloakSession session = context.getSession();
+        RealmModel realm = context.getRealm();
+
+        // Prefer linked IdP with matching domain first
+        List<IdentityProviderModel> homeIdps = matching.stream()
+            .filter(it -> session.users().getFederatedIdentity(realm, user, it.getAlias()) != null)
+            .collect(Collectors.toList());
+        if (!homeIdps.isEmpty()) {
+            return resolve(Stage.LINKED_MATCHING, homeIdps, subject);
+        }
+
+        // Prefer linked and enabled IdPs without matching domain in favor of not linked IdPs with matching domain
+        Set<String> linkedIdps = session.users().getFederatedIdentitiesStream(realm, user)
+            .map(FederatedIdentityModel::getIdentityProvider)
+            .collect(Collectors.toSet());
+        if (!linkedIdps.isEmpty()) {
+            homeIdps = linkedCandidates.apply(linkedIdps).stream()
+                .filter(it -> linkedIdps.contains(it.getAlias()))
+                .collect(Collectors.toList());
+            if (!homeIdps.isEmpty()) {
+                return resolve(Stage.LINKED_NON_MATCHING, homeIdps, subject);
+            }
+        }
+
+        // Fallback to not linked IdPs with matching domain (general case if user logs in for the first time)
+        return resolve(matching.isEmpty() ? Stage.NONE : Stage.NOT_LINKED_MATCHING, matching, subject);
+    }
+
+    private List<IdentityProviderModel> resolve(Stage stage, List<IdentityProviderModel> homeIdps, Object subject) {
+        resolved.get(stage).increment();
+        if (LOG.isTraceEnabled()) {
+            LOG.tracef("Found %s IdPs [%s] with %s domain or attribute '%s'", stage.idpQualifier,
+                homeIdps.stream().map(IdentityProviderModel::getAlias).collect(Collectors.joining(",")),
+                stage.domainQualifier, subject);
+        }
+        return homeIdps;
+    }
+
+    public long getResolvedCount(Stage stage) {
+        return resolved.get(stage).sum();
+    }
+
+    /** Discoveries resolved per stage, for {@code ServerInfoAwareProviderFactory#getOperationalInfo}. */
+    public Map<String, String> getOperationalInfo() {
+        Map<String, String> info = new LinkedHashMap<>();
+        for (Stage stage : Stage.values()) {
+            info.put("Resolved " + stage.name().toLowerCase().replace('_', '-'), String.valueOf(getResolvedCount(stage)));
+        }
+        return info;
+    }
+}
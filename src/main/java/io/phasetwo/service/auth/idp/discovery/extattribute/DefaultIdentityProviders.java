@@ -10,7 +10,7 @@ final class DefaultIdentityProviders implements IdentityProviders {
 
     @Override
     public List<IdentityProviderModel> withMatchingAttribute(AuthenticationFlowContext context, List<IdentityProviderModel> candidates, String attribute) {
-        UserAttributeHomeIdpDiscovererConfig config = new UserAttributeHomeIdpDiscovererConfig(context.getAuthenticatorConfig());
+        UserAttributeHomeIdpDiscovererConfig config = UserAttributeHomeIdpDiscovererConfig.of(context.getAuthenticatorConfig());
         String userAttributeName = config.userAttribute();
 
         List<IdentityProviderModel> idpsWithMatchingDomain = candidates.stream()
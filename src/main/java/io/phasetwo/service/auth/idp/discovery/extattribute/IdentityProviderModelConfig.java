@@ -3,8 +3,6 @@ package io.phasetwo.service.auth.idp.discovery.extattribute;
 import org.keycloak.models.Constants;
 import org.keycloak.models.IdentityProviderModel;
 
-import java.util.Arrays;
-
 import static io.phasetwo.service.auth.idp.discovery.extattribute.IdentityProviders.USER_ATTRIBUTE_KEY;
 
 final class IdentityProviderModelConfig {
@@ -17,7 +15,7 @@ final class IdentityProviderModelConfig {
 
     boolean supportsAttribute(String att) {
         String userAttributeValue = getUserAttributeConfigKey();
-        return Arrays.asList(Constants.CFG_DELIMITER_PATTERN.split(userAttributeValue)).contains(att);
+        return Constants.CFG_DELIMITER_PATTERN.splitAsStream(userAttributeValue).anyMatch(it -> it.equals(att));
     }
 
     private String getUserAttributeConfigKey() {
@@ -2,6 +2,7 @@ package io.phasetwo.service.auth.idp.discovery.extattribute;
 
 import io.phasetwo.service.auth.idp.PublicAPI;
 import io.phasetwo.service.auth.idp.Users;
+import io.phasetwo.service.auth.idp.discovery.HomeIdpDiscoveryStages;
 import io.phasetwo.service.auth.idp.discovery.spi.HomeIdpDiscoverer;
 import org.jboss.logging.Logger;
 import org.keycloak.authentication.AuthenticationFlowContext;
@@ -9,7 +10,6 @@ import org.keycloak.models.*;
 import org.keycloak.utils.StringUtil;
 
 import java.util.*;
-import java.util.stream.Collectors;
 
 import static java.util.Collections.emptyList;
 
@@ -20,16 +20,22 @@ public final class UserAttributeHomeIdpDiscoverer implements HomeIdpDiscoverer {
 
     private final Users users;
     private final IdentityProviders identityProviders;
+    private final HomeIdpDiscoveryStages stages;
 
     @PublicAPI(unstable = true)
     public UserAttributeHomeIdpDiscoverer(Users users, IdentityProviders identityProviders) {
+        this(users, identityProviders, new HomeIdpDiscoveryStages());
+    }
+
+    UserAttributeHomeIdpDiscoverer(Users users, IdentityProviders identityProviders, HomeIdpDiscoveryStages stages) {
         this.users = users;
         this.identityProviders = identityProviders;
+        this.stages = stages;
     }
 
     @Override
     public List<IdentityProviderModel> discoverForUser(AuthenticationFlowContext context, String username) {
-        UserAttributeHomeIdpDiscovererConfig config = new UserAttributeHomeIdpDiscovererConfig(context.getAuthenticatorConfig());
+        UserAttributeHomeIdpDiscovererConfig config = UserAttributeHomeIdpDiscovererConfig.of(context.getAuthenticatorConfig());
 
         String realmName = context.getRealm().getName();
         LOG.tracef("Trying to discover home IdP for username '%s' in realm '%s' with authenticator config '%s'",
@@ -51,7 +57,7 @@ public final class UserAttributeHomeIdpDiscoverer implements HomeIdpDiscoverer {
         }
 
         if (!StringUtil.isNullOrEmpty(attribute)) {
-            homeIdps = discoverHomeIdps(context, attribute, user, username);
+            homeIdps = discoverHomeIdps(context, config, attribute, user, username);
             if (homeIdps.isEmpty()) {
                 LOG.infof("Could not find home IdP for attribute '%s' and user '%s' in realm '%s'",
                         attribute, username, realmName);
@@ -63,25 +69,8 @@ public final class UserAttributeHomeIdpDiscoverer implements HomeIdpDiscoverer {
         return homeIdps;
     }
 
-    private List<IdentityProviderModel> discoverHomeIdps(AuthenticationFlowContext context, String attribute, UserModel user, String username) {
-        final Map<String, String> linkedIdps;
-
-        UserAttributeHomeIdpDiscovererConfig config = new UserAttributeHomeIdpDiscovererConfig(context.getAuthenticatorConfig());
-        if (user == null || !config.forwardToLinkedIdp()) {
-            linkedIdps = Collections.emptyMap();
-            LOG.tracef(
-                    "User '%s' is not stored locally or forwarding to linked IdP is disabled. Skipping discovery of linked IdPs.",
-                    username);
-        } else {
-            LOG.tracef(
-                    "Found local user '%s' and forwarding to linked IdP is enabled. Discovering linked IdPs.",
-                    username);
-            linkedIdps = context.getSession().users()
-                    .getFederatedIdentitiesStream(context.getRealm(), user)
-                    .collect(
-                            Collectors.toMap(FederatedIdentityModel::getIdentityProvider, FederatedIdentityModel::getUserName));
-        }
-
+    private List<IdentityProviderModel> discoverHomeIdps(AuthenticationFlowContext context, UserAttributeHomeIdpDiscovererConfig config,
+                                                         String attribute, UserModel user, String username) {
         List<IdentityProviderModel> candidateIdps = identityProviders.candidatesForHomeIdp(context, user);
         if (candidateIdps == null) {
             candidateIdps = emptyList();
@@ -91,40 +80,9 @@ public final class UserAttributeHomeIdpDiscoverer implements HomeIdpDiscoverer {
             idpsWithMatchingDomain = emptyList();
         }
 
-        // Prefer linked IdP with matching domain first
-        List<IdentityProviderModel> homeIdps = getLinkedIdpsFrom(idpsWithMatchingDomain, linkedIdps);
-
-        if (homeIdps.isEmpty()) {
-            if (!linkedIdps.isEmpty()) {
-                // Prefer linked and enabled IdPs without matching domain in favor of not linked IdPs with matching domain
-                homeIdps = getLinkedIdpsFrom(candidateIdps, linkedIdps);
-            }
-            if (homeIdps.isEmpty()) {
-                // Fallback to not linked IdPs with matching domain (general case if user logs in for the first time)
-                homeIdps = idpsWithMatchingDomain;
-                logFoundIdps("non-linked", "matching", homeIdps, attribute, username);
-            } else {
-                logFoundIdps("non-linked", "non-matching", homeIdps, attribute, username);
-            }
-        } else {
-            logFoundIdps("linked", "matching", homeIdps, attribute, username);
-        }
-
-        return homeIdps;
-    }
-
-    private void logFoundIdps(String idpQualifier, String domainQualifier, List<IdentityProviderModel> homeIdps, String attribute, String username) {
-        String homeIdpsString = homeIdps.stream()
-                .map(IdentityProviderModel::getAlias)
-                .collect(Collectors.joining(","));
-        LOG.tracef("Found %s IdPs [%s] with %s attribute '%s' for user '%s'",
-                idpQualifier, homeIdpsString, domainQualifier, attribute, username);
-    }
-
-    private List<IdentityProviderModel> getLinkedIdpsFrom(List<IdentityProviderModel> enabledIdpsWithMatchingDomain, Map<String, String> linkedIdps) {
-        return enabledIdpsWithMatchingDomain.stream()
-                .filter(it -> linkedIdps.containsKey(it.getAlias()))
-                .collect(Collectors.toList());
+        List<IdentityProviderModel> candidates = candidateIdps;
+        return stages.discover(context, user, config.forwardToLinkedIdp(), idpsWithMatchingDomain,
+            linkedIdps -> candidates, attribute);
     }
 
     @Override
@@ -1,15 +1,23 @@
 package io.phasetwo.service.auth.idp.discovery.extattribute;
 
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
 import org.keycloak.models.AuthenticatorConfigModel;
 import org.keycloak.provider.ProviderConfigProperty;
 import org.keycloak.provider.ProviderConfigurationBuilder;
 
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
 import java.util.Optional;
 
 import static org.keycloak.provider.ProviderConfigProperty.BOOLEAN_TYPE;
 import static org.keycloak.provider.ProviderConfigProperty.STRING_TYPE;
 
+/**
+ * Parsed, immutable discoverer config. Instances are cached per authenticator config, see {@link #of}.
+ */
 final class UserAttributeHomeIdpDiscovererConfig {
 
     private static final String FORWARD_TO_LINKED_IDP = "forwardToLinkedIdp";
@@ -36,27 +44,61 @@ final class UserAttributeHomeIdpDiscovererConfig {
         .property(USER_ATTRIBUTE_PROPERTY)
         .property(FORWARD_TO_LINKED_IDP_PROPERTY)
         .build();
-    private final AuthenticatorConfigModel authenticatorConfigModel;
+
+    private static final UserAttributeHomeIdpDiscovererConfig UNCONFIGURED = new UserAttributeHomeIdpDiscovererConfig(null);
+
+    private static final Cache<String, UserAttributeHomeIdpDiscovererConfig> parsedConfigs =
+        CacheBuilder.newBuilder().maximumSize(1000).build();
+
+    private final String configAlias;
+    private final Map<String, String> source;
+    private final boolean forwardToLinkedIdp;
+    private final String userAttribute;
+    private final String alias;
 
     public UserAttributeHomeIdpDiscovererConfig(AuthenticatorConfigModel authenticatorConfigModel) {
-        this.authenticatorConfigModel = authenticatorConfigModel;
+        Map<String, String> config = Optional.ofNullable(authenticatorConfigModel)
+            .map(AuthenticatorConfigModel::getConfig)
+            .orElse(Map.of());
+        this.configAlias = authenticatorConfigModel == null ? null : authenticatorConfigModel.getAlias();
+        this.source = new HashMap<>(config);
+        this.forwardToLinkedIdp = Boolean.parseBoolean(config.getOrDefault(FORWARD_TO_LINKED_IDP, "false"));
+        this.userAttribute = config.getOrDefault(USER_ATTRIBUTE, "email").trim();
+        this.alias = Optional.ofNullable(authenticatorConfigModel)
+            .map(AuthenticatorConfigModel::getAlias)
+            .orElse("<unconfigured>");
+    }
+
+    /**
+     * The parsed config, reused for as long as the id, alias and config values of the authenticator config
+     * stay the same.
+     */
+    static UserAttributeHomeIdpDiscovererConfig of(AuthenticatorConfigModel authenticatorConfigModel) {
+        if (authenticatorConfigModel == null) return UNCONFIGURED;
+        if (authenticatorConfigModel.getId() == null) return new UserAttributeHomeIdpDiscovererConfig(authenticatorConfigModel);
+        UserAttributeHomeIdpDiscovererConfig parsed = parsedConfigs.getIfPresent(authenticatorConfigModel.getId());
+        if (parsed == null || !parsed.isParsedFrom(authenticatorConfigModel)) {
+            parsed = new UserAttributeHomeIdpDiscovererConfig(authenticatorConfigModel);
+            parsedConfigs.put(authenticatorConfigModel.getId(), parsed);
+        }
+        return parsed;
+    }
+
+    private boolean isParsedFrom(AuthenticatorConfigModel authenticatorConfigModel) {
+        Map<String, String> config = authenticatorConfigModel.getConfig();
+        return Objects.equals(configAlias, authenticatorConfigModel.getAlias())
+            && source.equals(config == null ? Map.of() : config);
     }
 
     boolean forwardToLinkedIdp() {
-        return Optional.ofNullable(authenticatorConfigModel)
-            .map(it -> Boolean.parseBoolean(it.getConfig().getOrDefault(FORWARD_TO_LINKED_IDP, "false")))
-            .orElse(false);
+        return forwardToLinkedIdp;
     }
 
     String userAttribute() {
-        return Optional.ofNullable(authenticatorConfigModel)
-            .map(it -> it.getConfig().getOrDefault(USER_ATTRIBUTE, "email").trim())
-            .orElse("email");
+        return userAttribute;
     }
 
     String getAlias() {
-        return Optional.ofNullable(authenticatorConfigModel)
-            .map(AuthenticatorConfigModel::getAlias)
-            .orElse("<unconfigured>");
+        return alias;
     }
 }
@@ -3,6 +3,7 @@ package io.phasetwo.service.auth.idp.discovery.extattribute;
 import com.google.auto.service.AutoService;
 import io.phasetwo.service.auth.idp.OperationalInfo;
 import io.phasetwo.service.auth.idp.Users;
+import io.phasetwo.service.auth.idp.discovery.HomeIdpDiscoveryStages;
 import io.phasetwo.service.auth.idp.discovery.spi.HomeIdpDiscoverer;
 import io.phasetwo.service.auth.idp.discovery.spi.HomeIdpDiscovererFactory;
 import org.keycloak.Config;
@@ -10,6 +11,7 @@ import org.keycloak.models.KeycloakSession;
 import org.keycloak.models.KeycloakSessionFactory;
 import org.keycloak.provider.ServerInfoAwareProviderFactory;
 
+import java.util.LinkedHashMap;
 import java.util.Map;
 
 @AutoService(HomeIdpDiscovererFactory.class)
@@ -17,9 +19,11 @@ public final class UserAttributeHomeIdpDiscovererFactory implements HomeIdpDisco
 
     static final String PROVIDER_ID = "ext-user-attribute";
 
+    private final HomeIdpDiscoveryStages stages = new HomeIdpDiscoveryStages();
+
     @Override
     public HomeIdpDiscoverer create(KeycloakSession keycloakSession) {
-        return new UserAttributeHomeIdpDiscoverer(new Users(keycloakSession), new DefaultIdentityProviders());
+        return new UserAttributeHomeIdpDiscoverer(new Users(keycloakSession), new DefaultIdentityProviders(), stages);
     }
 
     @Override
@@ -44,6 +48,8 @@ public final class UserAttributeHomeIdpDiscovererFactory implements HomeIdpDisco
 
     @Override
     public Map<String, String> getOperationalInfo() {
-        return OperationalInfo.get();
+        Map<String, String> info = new LinkedHashMap<>(OperationalInfo.get());
+        info.putAll(stages.getOperationalInfo());
+        return info;
     }
 }
@@ -13,7 +13,7 @@ final class DefaultIdentityProviders implements IdentityProviders {
 
     @Override
     public List<IdentityProviderModel> withMatchingDomain(AuthenticationFlowContext context, List<IdentityProviderModel> candidates, Domain domain) {
-        EmailHomeIdpDiscovererConfig config = new EmailHomeIdpDiscovererConfig(context.getAuthenticatorConfig());
+        EmailHomeIdpDiscovererConfig config = EmailHomeIdpDiscovererConfig.of(context.getAuthenticatorConfig());
         String userAttributeName = config.userAttribute();
         List<IdentityProviderModel> idpsWithMatchingDomain = candidates.stream()
             .filter(it -> new IdentityProviderModelConfig(it).supportsDomain(userAttributeName, domain))
@@ -10,16 +10,16 @@ final class DomainExtractor {
 
     private static final Logger LOG = Logger.getLogger(DomainExtractor.class);
 
-    private final EmailHomeIdpDiscovererConfig config;
+    private final String userAttributeName;
 
-    DomainExtractor(EmailHomeIdpDiscovererConfig config) {
-        this.config = config;
+    DomainExtractor(String userAttributeName) {
+        this.userAttributeName = userAttributeName;
     }
 
     Optional<Domain> extractFrom(UserModel user) {
-        String userAttribute = user.getFirstAttribute(config.userAttribute());
+        String userAttribute = user.getFirstAttribute(userAttributeName);
         if (userAttribute == null) {
-            LOG.warnf("Could not find user attribute '%s' for user '%s'", config.userAttribute(), user.getId());
+            LOG.warnf("Could not find user attribute '%s' for user '%s'", userAttributeName, user.getId());
             return Optional.empty();
         }
         return extractFrom(userAttribute);
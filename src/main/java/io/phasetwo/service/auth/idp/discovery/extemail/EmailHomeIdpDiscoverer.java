@@ -1,10 +1,9 @@
 package io.phasetwo.service.auth.idp.discovery.extemail;
 
-import com.google.common.base.Strings;
 import io.phasetwo.service.auth.idp.PublicAPI;
 import io.phasetwo.service.auth.idp.Users;
+import io.phasetwo.service.auth.idp.discovery.HomeIdpDiscoveryStages;
 import io.phasetwo.service.auth.idp.discovery.spi.HomeIdpDiscoverer;
-import io.phasetwo.service.model.OrganizationModel;
 import io.phasetwo.service.model.OrganizationProvider;
 import org.jboss.logging.Logger;
 import org.keycloak.authentication.AuthenticationFlowContext;
@@ -14,8 +13,6 @@ import java.util.*;
 import java.util.stream.Collectors;
 
 import static io.phasetwo.service.Orgs.ORG_CONFIG_VALIDATE_IDP_KEY;
-import static io.phasetwo.service.Orgs.ORG_DOMAIN_CONFIG_KEY;
-import static io.phasetwo.service.Orgs.ORG_VALIDATION_PENDING_CONFIG_KEY;
 
 @PublicAPI(unstable = true)
 public final class EmailHomeIdpDiscoverer implements HomeIdpDiscoverer {
@@ -24,25 +21,29 @@ public final class EmailHomeIdpDiscoverer implements HomeIdpDiscoverer {
     private static final String EMAIL_ATTRIBUTE = "email";
     private final Users users;
     private final IdentityProviders identityProviders;
+    private final HomeIdpDiscoveryStages stages;
 
     @PublicAPI(unstable = true)
     public EmailHomeIdpDiscoverer(Users users, IdentityProviders identityProviders) {
+        this(users, identityProviders, new HomeIdpDiscoveryStages());
+    }
+
+    EmailHomeIdpDiscoverer(Users users, IdentityProviders identityProviders, HomeIdpDiscoveryStages stages) {
         this.users = users;
         this.identityProviders = identityProviders;
+        this.stages = stages;
     }
 
     @Override
     public List<IdentityProviderModel> discoverForUser(AuthenticationFlowContext context, String username) {
 
         String realmName = context.getRealm().getName();
-        EmailHomeIdpDiscovererConfig config = new EmailHomeIdpDiscovererConfig(context.getAuthenticatorConfig());
-        LOG.tracef("Trying to discover home IdP for username '%s' in realm '%s' with authenticator config '%s'",
-                username, realmName, config == null ? "<unconfigured>" : config.getAlias());
-
-        DomainExtractor domainExtractor = new DomainExtractor(config);
+        EmailHomeIdpDiscovererConfig config = EmailHomeIdpDiscovererConfig.of(context.getAuthenticatorConfig());
         LOG.tracef("Trying to discover home IdP for username '%s' in realm '%s' with authenticator config '%s'",
                 username, realmName, config.getAlias());
 
+        DomainExtractor domainExtractor = config.domainExtractor();
+
         List<IdentityProviderModel> homeIdps = new ArrayList<>();
 
         final Optional<Domain> emailDomain;
@@ -66,7 +67,7 @@ public final class EmailHomeIdpDiscoverer implements HomeIdpDiscoverer {
 
         if (emailDomain.isPresent()) {
             Domain domain = emailDomain.get();
-            homeIdps = discoverHomeIdps(context, domain, user, username);
+            homeIdps = discoverHomeIdps(context, config, domain, user, username);
             if (homeIdps.isEmpty()) {
                 LOG.debugf("Could not find home IdP for domain '%s' and user '%s' in realm '%s'",
                         domain, username, realmName);
@@ -85,40 +86,18 @@ public final class EmailHomeIdpDiscoverer implements HomeIdpDiscoverer {
 
     /**
      * Get a list of idps given an email domain, user and username.
-     * 1. If the user is set in the context, initially look up the set of federated identities that match the user.
-     * 2. Look up all enabled idps for the realm. This seems unneccessary and a performance risk.
-     * 3. Get a stream of organizations with a matching email domain. Map those to idps.
-     * 3a. If multi-idps is turned on, get a subset of that list with domain matches in the config.
-     * 4. Get a subset of the list that match the user's federated identities. Return that if it's non-empty.
-     * 5. If empty, but user has linked idps, prefer linked and enabled IdPs without matching domain in favor of not linked IdPs with matching domain
-     * 6. If empty, but user doesn't have linked idps, fallback to not linked IdPs with matching domain (general case if user logs in for the first time)
+     * 1. Look up the idps of organizations owning the email domain, or the closest parent domain, in the realm's routing table.
+     * 1a. If multi-idps is turned on, the table returns the subset with domain matches in the config, if any.
+     * 2. Hand them to the discovery stages, which prefer linked idps and only load the user's federated identities
+     *    and the linked idps without matching domain when the matching ones aren't linked.
+     * @param config Discoverer config
      * @param domain Email domain
      * @param user User if set in the context
      * @param username Username or email
      * @returns A list of Identity Providers
      */
-    private List<IdentityProviderModel> discoverHomeIdps(AuthenticationFlowContext context, Domain domain, UserModel user, String username) {
-        final Map<String, String> linkedIdps;
-
-        EmailHomeIdpDiscovererConfig config = new EmailHomeIdpDiscovererConfig(context.getAuthenticatorConfig());
-        if (user == null || !config.forwardToLinkedIdp()) {
-            linkedIdps = Collections.emptyMap();
-            LOG.tracef(
-                    "User '%s' is not stored locally or forwarding to linked IdP is disabled. Skipping discovery of linked IdPs.",
-                    username);
-        } else {
-            LOG.tracef(
-                    "Found local user '%s' and forwarding to linked IdP is enabled. Discovering linked IdPs.",
-                    username);
-            linkedIdps = context
-                    .getSession()
-                    .users()
-                    .getFederatedIdentitiesStream(context.getRealm(), user)
-                    .collect(
-                            Collectors.toMap(FederatedIdentityModel::getIdentityProvider, FederatedIdentityModel::getUserName));
-        }
-
-        List<IdentityProviderModel> enabledIdps = determineEnabledIdps(context);
+    private List<IdentityProviderModel> discoverHomeIdps(AuthenticationFlowContext context, EmailHomeIdpDiscovererConfig config,
+                                                         Domain domain, UserModel user, String username) {
         // Original; lookup mechanism from https://github.com/sventorben/keycloak-home-idp-discovery
         /*
         List<IdentityProviderModel> enabledIdpsWithMatchingDomain = filterIdpsWithMatchingDomainFrom(enabledIdps,
@@ -126,86 +105,35 @@ public final class EmailHomeIdpDiscoverer implements HomeIdpDiscoverer {
             config);
         */
         // Overidden lookup mechanism to lookup via organization domain
+        // The routing table already applies the multi-idps domain preference: if any IdP lists the
+        // domain in its config, only those are returned.
+        RealmModel realm = context.getRealm();
         OrganizationProvider orgs = context.getSession().getProvider(OrganizationProvider.class);
-        boolean validateIdpEnabled = context.getRealm().getAttribute(ORG_CONFIG_VALIDATE_IDP_KEY, false);
+        boolean validateIdpEnabled = realm.getAttribute(ORG_CONFIG_VALIDATE_IDP_KEY, false);
         List<IdentityProviderModel> enabledIdpsWithMatchingDomain =
-                orgs.getOrganizationsStreamForDomain(
-                                context.getRealm(), domain.toString(), config.requireVerifiedDomain())
-                        .flatMap(OrganizationModel::getIdentityProvidersStream)
-                        .filter(IdentityProviderModel::isEnabled)
-                        .filter(
-                                idp ->
-                                        !validateIdpEnabled
-                                                || !isIdpValidationPending(idp))
-                        .collect(Collectors.toList());
-
-        // If multi-idps is turned on, get a subset of that list with domain matches in the config.
-        if (io.phasetwo.service.util.IdentityProviders.isMultipleIdpsConfigEnabled(context.getRealm())) {
-            List<IdentityProviderModel> domainMatchingIdps =
-                    enabledIdpsWithMatchingDomain
-                            .stream()
-                            .filter(idp -> {
-                                String domains = idp.getConfig().get(ORG_DOMAIN_CONFIG_KEY);
-                                if (Strings.isNullOrEmpty(domains)) return false;
-                                return io.phasetwo.service.util.IdentityProviders.strListContains(domains, domain.toString());
-                            })
-                            .distinct()
-                            .collect(Collectors.toList());
-            // If there are _any_ matches, use that list. If there are none, use the original list.
-            if (!domainMatchingIdps.isEmpty()) {
-                enabledIdpsWithMatchingDomain = domainMatchingIdps;
-            }
-        }
-
-        // Prefer linked IdP with matching domain first
-        List<IdentityProviderModel> homeIdps = getLinkedIdpsFrom(enabledIdpsWithMatchingDomain, linkedIdps);
-
-        if (homeIdps.isEmpty()) {
-            if (!linkedIdps.isEmpty()) {
-                // Prefer linked and enabled IdPs without matching domain in favor of not linked IdPs with matching domain
-                homeIdps = getLinkedIdpsFrom(enabledIdps, linkedIdps);
-            }
-            if (homeIdps.isEmpty()) {
-                // Fallback to not linked IdPs with matching domain (general case if user logs in for the first time)
-                homeIdps = enabledIdpsWithMatchingDomain;
-                logFoundIdps("non-linked", "matching", homeIdps, domain, username);
-            } else {
-                logFoundIdps("non-linked", "non-matching", homeIdps, domain, username);
-            }
-        } else {
-            logFoundIdps("linked", "matching", homeIdps, domain, username);
-        }
-
-        return homeIdps;
-    }
-
-    private void logFoundIdps(String idpQualifier, String domainQualifier, List<IdentityProviderModel> homeIdps, Domain domain, String username) {
-        String homeIdpsString = homeIdps.stream()
-                .map(IdentityProviderModel::getAlias)
-                .collect(Collectors.joining(","));
-        LOG.tracef("Found %s IdPs [%s] with %s domain '%s' for user '%s'",
-                idpQualifier, homeIdpsString, domainQualifier, domain, username);
+                getEnabledIdps(context, orgs.getDomainRoutes(realm, domain.toString())
+                        .getIdentityProviderAliases(
+                                domain.toString(),
+                                config.requireVerifiedDomain(),
+                                validateIdpEnabled,
+                                io.phasetwo.service.util.IdentityProviders.isMultipleIdpsConfigEnabled(realm)));
+
+        return stages.discover(context, user, config.forwardToLinkedIdp(), enabledIdpsWithMatchingDomain,
+                linkedIdps -> getEnabledIdps(context, linkedIdps), domain);
     }
 
     /**
-     * Given a list of idps and a map of idp alias to federated username, return a subset of the list that are contained in the map keys.
-     * @param enabledIdpsWithMatchingDomain A list of identity providers
-     * @param linkedIdps A map of idp alias to federated username
-     * @returns A subset of the list that are contained in the map keys
+     * Resolves aliases through the IdP cache instead of loading all IdPs of the realm.
+     * @returns The enabled idps among the aliases
      */
-    private List<IdentityProviderModel> getLinkedIdpsFrom(List<IdentityProviderModel> enabledIdpsWithMatchingDomain, Map<String, String> linkedIdps) {
-        return enabledIdpsWithMatchingDomain.stream()
-                .filter(it -> linkedIdps.containsKey(it.getAlias()))
+    private List<IdentityProviderModel> getEnabledIdps(AuthenticationFlowContext context, Collection<String> aliases) {
+        return aliases.stream()
+                .map(alias -> context.getSession().identityProviders().getByAlias(alias))
+                .filter(Objects::nonNull)
+                .filter(IdentityProviderModel::isEnabled)
                 .collect(Collectors.toList());
     }
 
-    private boolean isIdpValidationPending(IdentityProviderModel idp) {
-        return Boolean.parseBoolean(
-                Optional.ofNullable(idp.getConfig())
-                        .map(cfg -> cfg.get(ORG_VALIDATION_PENDING_CONFIG_KEY))
-                        .orElse(null));
-    }
-
 //
 //    private List<IdentityProviderModel> filterIdpsWithMatchingDomainFrom(List<IdentityProviderModel> enabledIdps, Domain domain, HomeIdpDiscoveryConfig config) {
 //        String userAttributeName = config.userAttribute();
@@ -217,20 +145,6 @@ public final class EmailHomeIdpDiscoverer implements HomeIdpDiscoverer {
 //        return idpsWithMatchingDomain;
 //    }
 
-    /**
-     * @returns A list of all enabled idps for a realm.
-     */
-    private List<IdentityProviderModel> determineEnabledIdps(AuthenticationFlowContext context) {
-        RealmModel realm = context.getRealm();
-        List<IdentityProviderModel> enabledIdps = context.getSession().identityProviders().getAllStream()
-                .filter(IdentityProviderModel::isEnabled)
-                .collect(Collectors.toList());
-        LOG.tracef("Enabled IdPs in realm '%s': %s",
-                realm.getName(),
-                enabledIdps.stream().map(IdentityProviderModel::getAlias).collect(Collectors.joining(",")));
-        return enabledIdps;
-    }
-
     @Override
     public void close() {
     }
@@ -1,16 +1,24 @@
 //package de.sventorben.keycloak.authentication.hidpd.discovery.email;
 package io.phasetwo.service.auth.idp.discovery.extemail;
 
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
 import org.keycloak.models.AuthenticatorConfigModel;
 import org.keycloak.provider.ProviderConfigProperty;
 import org.keycloak.provider.ProviderConfigurationBuilder;
 
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
 import java.util.Optional;
 
 import static org.keycloak.provider.ProviderConfigProperty.BOOLEAN_TYPE;
 import static org.keycloak.provider.ProviderConfigProperty.STRING_TYPE;
 
+/**
+ * Parsed, immutable discoverer config. Instances are cached per authenticator config, see {@link #of}.
+ */
 final class EmailHomeIdpDiscovererConfig {
 
     private static final String FORWARD_TO_LINKED_IDP = "forwardToLinkedIdp";
@@ -60,43 +68,79 @@ final class EmailHomeIdpDiscovererConfig {
         .property(REQUIRE_VERIFIED_EMAIL_PROPERTY)
         .property(REQUIRE_VERIFIED_DOMAIN_PROPERTY)
         .build();
-    private final AuthenticatorConfigModel authenticatorConfigModel;
+
+    private static final EmailHomeIdpDiscovererConfig UNCONFIGURED = new EmailHomeIdpDiscovererConfig(null);
+
+    private static final Cache<String, EmailHomeIdpDiscovererConfig> parsedConfigs =
+        CacheBuilder.newBuilder().maximumSize(1000).build();
+
+    private final String configAlias;
+    private final Map<String, String> source;
+    private final boolean forwardToLinkedIdp;
+    private final String userAttribute;
+    private final boolean requireVerifiedEmail;
+    private final boolean requireVerifiedDomain;
+    private final String alias;
+    private final DomainExtractor domainExtractor;
 
     public EmailHomeIdpDiscovererConfig(AuthenticatorConfigModel authenticatorConfigModel) {
-        this.authenticatorConfigModel = authenticatorConfigModel;
+        Map<String, String> config = Optional.ofNullable(authenticatorConfigModel)
+            .map(AuthenticatorConfigModel::getConfig)
+            .orElse(Map.of());
+        this.configAlias = authenticatorConfigModel == null ? null : authenticatorConfigModel.getAlias();
+        this.source = new HashMap<>(config);
+        this.forwardToLinkedIdp = Boolean.parseBoolean(config.getOrDefault(FORWARD_TO_LINKED_IDP, "false"));
+        this.userAttribute = config.getOrDefault(USER_ATTRIBUTE, "email").trim();
+        this.requireVerifiedEmail = Boolean.parseBoolean(config.getOrDefault(REQUIRE_VERIFIED_EMAIL, "false"));
+        this.requireVerifiedDomain = Boolean.parseBoolean(config.getOrDefault(REQUIRE_VERIFIED_DOMAIN, "false"));
+        this.alias = Optional.ofNullable(authenticatorConfigModel)
+            .map(AuthenticatorConfigModel::getAlias)
+            .orElse("<unconfigured>");
+        this.domainExtractor = new DomainExtractor(this.userAttribute);
+    }
+
+    /**
+     * The parsed config, reused for as long as the id, alias and config values of the authenticator config
+     * stay the same.
+     */
+    static EmailHomeIdpDiscovererConfig of(AuthenticatorConfigModel authenticatorConfigModel) {
+        if (authenticatorConfigModel == null) return UNCONFIGURED;
+        if (authenticatorConfigModel.getId() == null) return new EmailHomeIdpDiscovererConfig(authenticatorConfigModel);
+        EmailHomeIdpDiscovererConfig parsed = parsedConfigs.getIfPresent(authenticatorConfigModel.getId());
+        if (parsed == null || !parsed.isParsedFrom(authenticatorConfigModel)) {
+            parsed = new EmailHomeIdpDiscovererConfig(authenticatorConfigModel);
+            parsedConfigs.put(authenticatorConfigModel.getId(), parsed);
+        }
+        return parsed;
+    }
+
+    private boolean isParsedFrom(AuthenticatorConfigModel authenticatorConfigModel) {
+        Map<String, String> config = authenticatorConfigModel.getConfig();
+        return Objects.equals(configAlias, authenticatorConfigModel.getAlias())
+            && source.equals(config == null ? Map.of() : config);
     }
 
     boolean forwardToLinkedIdp() {
-        return Optional.ofNullable(authenticatorConfigModel)
-            .map(it -> Boolean.parseBoolean(it.getConfig().getOrDefault(FORWARD_TO_LINKED_IDP, "false")))
-            .orElse(false);
+        return forwardToLinkedIdp;
     }
 
     String userAttribute() {
-        return Optional.ofNullable(authenticatorConfigModel)
-            .map(it -> it.getConfig().getOrDefault(USER_ATTRIBUTE, "email").trim())
-            .orElse("email");
+        return userAttribute;
     }
 
     boolean requireVerifiedEmail() {
-        return Optional.ofNullable(authenticatorConfigModel)
-                .map(
-                        it ->
-                                Boolean.parseBoolean(it.getConfig().getOrDefault(REQUIRE_VERIFIED_EMAIL, "false")))
-                .orElse(false);
+        return requireVerifiedEmail;
     }
 
     boolean requireVerifiedDomain() {
-        return Optional.ofNullable(authenticatorConfigModel)
-                .map(
-                        it ->
-                                Boolean.parseBoolean(it.getConfig().getOrDefault(REQUIRE_VERIFIED_DOMAIN, "false")))
-                .orElse(false);
+        return requireVerifiedDomain;
     }
 
     String getAlias() {
-        return Optional.ofNullable(authenticatorConfigModel)
-            .map(AuthenticatorConfigModel::getAlias)
-            .orElse("<unconfigured>");
+        return alias;
+    }
+
+    DomainExtractor domainExtractor() {
+        return domainExtractor;
     }
 }
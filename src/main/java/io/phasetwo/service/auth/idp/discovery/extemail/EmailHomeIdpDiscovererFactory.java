@@ -4,6 +4,7 @@ package io.phasetwo.service.auth.idp.discovery.extemail;
 import com.google.auto.service.AutoService;
 import io.phasetwo.service.auth.idp.OperationalInfo;
 import io.phasetwo.service.auth.idp.Users;
+import io.phasetwo.service.auth.idp.discovery.HomeIdpDiscoveryStages;
 import io.phasetwo.service.auth.idp.discovery.spi.HomeIdpDiscoverer;
 import io.phasetwo.service.auth.idp.discovery.spi.HomeIdpDiscovererFactory;
 import org.keycloak.Config;
@@ -11,6 +12,7 @@ import org.keycloak.models.KeycloakSession;
 import org.keycloak.models.KeycloakSessionFactory;
 import org.keycloak.provider.ServerInfoAwareProviderFactory;
 
+import java.util.LinkedHashMap;
 import java.util.Map;
 
 @AutoService(HomeIdpDiscovererFactory.class)
@@ -18,9 +20,11 @@ public final class EmailHomeIdpDiscovererFactory implements HomeIdpDiscovererFac
 
     static final String PROVIDER_ID = "ext-email";
 
+    private final HomeIdpDiscoveryStages stages = new HomeIdpDiscoveryStages();
+
     @Override
     public HomeIdpDiscoverer create(KeycloakSession keycloakSession) {
-        return new EmailHomeIdpDiscoverer(new Users(keycloakSession), new DefaultIdentityProviders());
+        return new EmailHomeIdpDiscoverer(new Users(keycloakSession), new DefaultIdentityProviders(), stages);
     }
 
     @Override
@@ -45,6 +49,8 @@ public final class EmailHomeIdpDiscovererFactory implements HomeIdpDiscovererFac
 
     @Override
     public Map<String, String> getOperationalInfo() {
-        return OperationalInfo.get();
+        Map<String, String> info = new LinkedHashMap<>(OperationalInfo.get());
+        info.putAll(stages.getOperationalInfo());
+        return info;
     }
 }
@@ -0,0 +1,269 @@
+package io.phasetwo.service.model;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSet;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Immutable routing table of a realm, from organization domain to the organizations that own it
+ * and to their enabled identity providers. Used by home IdP discovery so that a login is a map
+ * lookup instead of a domain query followed by an IdP query per organization. The cache layer
+ * keeps a table of the whole realm and builds a new one whenever an organization domain or linked
+ * IdP changes; a table is never modified once built.
+ *
+ * <p>Domains are stored in a trie keyed by label, starting from the top-level label, so the owners
+ * of a domain and of all its parent domains are found in one walk of at most as many steps as the
+ * domain has labels.
+ */
+public class DomainRoutes {
+
+  public static final DomainRoutes EMPTY = new DomainRoutes(Node.EMPTY);
+
+  /** An enabled identity provider linked to an organization. */
+  public static class IdentityProviderRoute {
+
+    private final String alias;
+    private final boolean validationPending;
+    private final Set<String> domains;
+
+    public IdentityProviderRoute(String alias, boolean validationPending, Set<String> domains) {
+      this.alias = alias;
+      this.validationPending = validationPending;
+      this.domains =
+          domains.stream().map(DomainRoutes::normalize).collect(ImmutableSet.toImmutableSet());
+    }
+
+    public String getAlias() {
+      return alias;
+    }
+
+    public boolean isValidationPending() {
+      return validationPending;
+    }
+
+    /** Domains from the {@code home.idp.discovery.domains} config of the IdP. */
+    public Set<String> getDomains() {
+      return domains;
+    }
+  }
+
+  /**
+   * An organization owning a domain, with its enabled identity providers ordered by alias. The
+   * domain is the one the organization registered, which may be a parent of the domain looked up.
+   */
+  public static class OrganizationRoute {
+
+    private final String organizationId;
+    private final String domain;
+    private final boolean verified;
+    private final List<IdentityProviderRoute> identityProviders;
+
+    public OrganizationRoute(
+        String organizationId,
+        String domain,
+        boolean verified,
+        List<IdentityProviderRoute> identityProviders) {
+      this.organizationId = organizationId;
+      this.domain = domain;
+      this.verified = verified;
+      this.identityProviders = ImmutableList.copyOf(identityProviders);
+    }
+
+    public String getOrganizationId() {
+      return organizationId;
+    }
+
+    public String getDomain() {
+      return domain;
+    }
+
+    public boolean isVerified() {
+      return verified;
+    }
+
+    public List<IdentityProviderRoute> getIdentityProviders() {
+      return identityProviders;
+    }
+  }
+
+  private static class Node {
+
+    static final Node EMPTY = new Node(ImmutableMap.of(), ImmutableList.of());
+
+    final Map<String, Node> children;
+    final List<OrganizationRoute> owners;
+
+    Node(Map<String, Node> children, List<OrganizationRoute> owners) {
+      this.children = children;
+      this.owners = owners;
+    }
+  }
+
+  private final Node root;
+
+  private DomainRoutes(Node root) {
+    this.root = root;
+  }
+
+  public static Builder builder() {
+    return new Builder();
+  }
+
+  /**
+   * Organizations owning the domain or one of its parent domains, grouped by the domain they own,
+   * most specific domain first.
+   */
+  public List<List<OrganizationRoute>> findOrganizations(String domain) {
+    if (domain == null) return ImmutableList.of();
+    String name = normalize(domain);
+    List<List<OrganizationRoute>> found = new ArrayList<>(2);
+    Node node = root;
+    int end = name.length();
+    while (end > 0) {
+      int dot = name.lastIndexOf('.', end - 1);
+      node = node.children.get(name.substring(dot + 1, end));
+      if (node == null) break;
+      if (!node.owners.isEmpty()) found.add(0, node.owners);
+      end = dot;
+    }
+    return found;
+  }
+
+  /**
+   * Whether the organization owns the domain or one of its parent domains.
+   *
+   * @param verified only consider domains the organization has verified
+   */
+  public boolean isOwnedBy(String organizationId, String domain, boolean verified) {
+    for (List<OrganizationRoute> level : findOrganizations(domain)) {
+      for (OrganizationRoute org : level) {
+        if (org.getOrganizationId().equals(organizationId) && (!verified || org.isVerified()))
+          return true;
+      }
+    }
+    return false;
+  }
+
+  /**
+   * Aliases of the enabled identity providers of the organizations owning the domain. Like a
+   * routing table, the most specific owned domain that yields any identity provider wins, so an
+   * organization owning {@code eu.example.com} takes precedence over one owning {@code
+   * example.com}.
+   *
+   * @param verified only consider organizations that have verified the domain
+   * @param validated skip identity providers whose validation is pending
+   * @param multipleIdps prefer identity providers that list the domain in their config, if any do
+   */
+  public List<String> getIdentityProviderAliases(
+      String domain, boolean verified, boolean validated, boolean multipleIdps) {
+    List<List<OrganizationRoute>> levels = findOrganizations(domain);
+    if (levels.isEmpty()) return ImmutableList.of();
+    String name = normalize(domain);
+    for (List<OrganizationRoute> level : levels) {
+      Set<String> aliases = new LinkedHashSet<>();
+      Set<String> domainMatching = new LinkedHashSet<>();
+      for (OrganizationRoute org : level) {
+        if (verified && !org.isVerified()) continue;
+        for (IdentityProviderRoute idp : org.getIdentityProviders()) {
+          if (validated && idp.isValidationPending()) continue;
+          aliases.add(idp.getAlias());
+          if (multipleIdps
+              && (idp.getDomains().contains(name) || idp.getDomains().contains(org.getDomain())))
+            domainMatching.add(idp.getAlias());
+        }
+      }
+      if (!aliases.isEmpty()) {
+        return ImmutableList.copyOf(domainMatching.isEmpty() ? aliases : domainMatching);
+      }
+    }
+    return ImmutableList.of();
+  }
+
+  /**
+   * The normalized domain followed by its parent domains, {@code a.example.com}, {@code
+   * example.com} and {@code com}.
+   */
+  public static List<String> withParents(String domain) {
+    String name = normalize(domain);
+    List<String> domains = new ArrayList<>();
+    for (int start = 0; start >= 0 && start < name.length(); ) {
+      domains.add(name.substring(start));
+      int dot = name.indexOf('.', start);
+      start = dot < 0 ? -1 : dot + 1;
+    }
+    return domains;
+  }
+
+  public boolean isEmpty() {
+    return root.children.isEmpty();
+  }
+
+  private static String normalize(String domain) {
+    return domain.trim().toLowerCase(Locale.ROOT);
+  }
+
+  /** Collects domain and IdP rows, in any order, into a {@link DomainRoutes}. */
+  public static class Builder {
+
+    private final Map<String, Map<String, Boolean>> domains = new HashMap<>();
+    private final Map<String, List<IdentityProviderRoute>> identityProviders = new HashMap<>();
+
+    public Builder domain(String domain, String organizationId, boolean verified) {
+      if (domain == null || organizationId == null) return this;
+      domains
+          .computeIfAbsent(normalize(domain), k -> new HashMap<>())
+          .merge(organizationId, verified, Boolean::logicalOr);
+      return this;
+    }
+
+    /** Identity providers of an organization must be added in the order they should be tried. */
+    public Builder identityProvider(String organizationId, IdentityProviderRoute idp) {
+      if (organizationId == null || idp == null) return this;
+      identityProviders.computeIfAbsent(organizationId, k -> new ArrayList<>()).add(idp);
+      return this;
+    }
+
+    public DomainRoutes build() {
+      MutableNode root = new MutableNode();
+      domains.forEach(
+          (domain, owners) -> {
+            MutableNode node = root;
+            List<String> labels = Arrays.asList(domain.split("\\."));
+            for (int i = labels.size() - 1; i >= 0; i--) {
+              if (labels.get(i).isEmpty()) continue;
+              node = node.children.computeIfAbsent(labels.get(i), k -> new MutableNode());
+            }
+            MutableNode owner = node;
+            owners.forEach(
+                (orgId, verified) ->
+                    owner.owners.add(
+                        new OrganizationRoute(
+                            orgId,
+                            domain,
+                            verified,
+                            identityProviders.getOrDefault(orgId, ImmutableList.of()))));
+          });
+      return new DomainRoutes(root.freeze());
+    }
+  }
+
+  private static class MutableNode {
+
+    final Map<String, MutableNode> children = new HashMap<>();
+    final List<OrganizationRoute> owners = new ArrayList<>();
+
+    Node freeze() {
+      ImmutableMap.Builder<String, Node> frozen = ImmutableMap.builder();
+      children.forEach((label, child) -> frozen.put(label, child.freeze()));
+      return new Node(frozen.build(), ImmutableList.copyOf(owners));
+    }
+  }
+}
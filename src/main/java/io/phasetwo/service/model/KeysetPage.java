@@ -0,0 +1,43 @@
+package io.phasetwo.service.model;
+
+import com.google.common.collect.ImmutableList;
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * A page of rows in a stable order, with the cursor of the following page, or {@code null} if
+ * this is the last page.
+ */
+public class KeysetPage<T> {
+
+  private final List<T> items;
+  private final PageCursor next;
+
+  public KeysetPage(List<T> items, PageCursor next) {
+    this.items = ImmutableList.copyOf(items);
+    this.next = next;
+  }
+
+  /**
+   * Page from up to {@code maxResults + 1} rows: the extra row only tells that there is a
+   * following page, which starts after the last row kept.
+   */
+  public static <T> KeysetPage<T> of(List<T> rows, int maxResults, Function<T, PageCursor> cursor) {
+    if (maxResults <= 0) return new KeysetPage<>(List.of(), null);
+    if (rows.size() <= maxResults) return new KeysetPage<>(rows, null);
+    List<T> items = rows.subList(0, maxResults);
+    return new KeysetPage<>(items, cursor.apply(items.get(maxResults - 1)));
+  }
+
+  public List<T> getItems() {
+    return items;
+  }
+
+  public PageCursor getNext() {
+    return next;
+  }
+
+  public <R> KeysetPage<R> map(Function<T, R> mapper) {
+    return new KeysetPage<>(items.stream().map(mapper).toList(), next);
+  }
+}
@@ -0,0 +1,65 @@
+package io.phasetwo.service.model;
+
+/** The user fields of an organization member needed for a brief representation. */
+public class OrganizationMemberSummary {
+
+  private final String id;
+  private final String username;
+  private final String email;
+  private final boolean emailVerified;
+  private final String firstName;
+  private final String lastName;
+  private final boolean enabled;
+  private final Long createdTimestamp;
+
+  public OrganizationMemberSummary(
+      String id,
+      String username,
+      String email,
+      boolean emailVerified,
+      String firstName,
+      String lastName,
+      boolean enabled,
+      Long createdTimestamp) {
+    this.id = id;
+    this.username = username;
+    this.email = email;
+    this.emailVerified = emailVerified;
+    this.firstName = firstName;
+    this.lastName = lastName;
+    this.enabled = enabled;
+    this.createdTimestamp = createdTimestamp;
+  }
+
+  public String getId() {
+    return id;
+  }
+
+  public String getUsername() {
+    return username;
+  }
+
+  public String getEmail() {
+    return email;
+  }
+
+  public boolean isEmailVerified() {
+    return emailVerified;
+  }
+
+  public String getFirstName() {
+    return firstName;
+  }
+
+  public String getLastName() {
+    return lastName;
+  }
+
+  public boolean isEnabled() {
+    return enabled;
+  }
+
+  public Long getCreatedTimestamp() {
+    return createdTimestamp;
+  }
+}
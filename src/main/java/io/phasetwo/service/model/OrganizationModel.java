@@ -55,6 +55,15 @@ public interface OrganizationModel extends WithAttributes {
   Stream<UserModel> searchForMembersStream(
       String search, Integer firstResult, Integer maxResults, boolean excludeAdminAccounts);
 
+  /**
+   * Same as {@link #searchForMembersStream(String, Integer, Integer, boolean)}, but paged by keyset
+   * on membership creation time and id instead of by offset.
+   *
+   * @param after cursor of the previous page, or {@code null} for the first page
+   */
+  KeysetPage<UserModel> searchForMembersPage(
+      String search, PageCursor after, int maxResults, boolean excludeAdminAccounts);
+
   Stream<OrganizationMemberModel> getOrganizationMembersStream();
 
   Stream<OrganizationMemberModel> searchForOrganizationMembersStream(
@@ -62,7 +71,15 @@ public interface OrganizationModel extends WithAttributes {
 
   boolean hasMembership(UserModel user);
 
-  void grantMembership(UserModel user);
+  default void grantMembership(UserModel user) {
+    grantMembership(user, false);
+  }
+
+  /**
+   * @param systemUser whether the user is the admin user created with the organization, which
+   *     searches and counts that exclude admin accounts leave out
+   */
+  void grantMembership(UserModel user, boolean systemUser);
 
   void revokeMembership(UserModel user);
 
@@ -74,6 +91,14 @@ public interface OrganizationModel extends WithAttributes {
     return getInvitationsStream().filter(i -> i.getEmail().equals(email));
   }
 
+  /**
+   * Invitations with an email containing {@code search}, paged by keyset on creation time and id.
+   *
+   * @param after cursor of the previous page, or {@code null} for the first page
+   */
+  KeysetPage<InvitationModel> searchForInvitationsPage(
+      String search, PageCursor after, int maxResults);
+
   InvitationModel getInvitation(String id);
 
   void revokeInvitation(String id);
@@ -27,14 +27,109 @@ public interface OrganizationProvider extends Provider {
 
   Stream<OrganizationModel> getUserOrganizationsStream(RealmModel realm, UserModel user);
 
+  /**
+   * Organizations of which the user is a member, each with the names of the organization roles
+   * granted to the user. Loaded in a single query.
+   */
+  Stream<UserOrganizationRoles> getUserOrganizationRolesStream(RealmModel realm, UserModel user);
+
+  /**
+   * The given organizations of the realm, each with whether the user is a member. Loaded in a
+   * single query per 1000 ids. Ids of organizations that don't exist are not present in the
+   * result.
+   */
+  Stream<ResolvedOrganization> resolveOrganizationsStream(
+      RealmModel realm, Collection<String> organizationIds, UserModel user);
+
+  /**
+   * Attributes of the given organizations, keyed by organization id, loaded in a single query.
+   * Organizations without attributes are not present in the result.
+   */
+  default Map<String, Map<String, List<String>>> getOrganizationsAttributes(
+      RealmModel realm, Collection<String> organizationIds) {
+    return getOrganizationsAttributes(realm, organizationIds, null);
+  }
+
+  /**
+   * Same as {@link #getOrganizationsAttributes(RealmModel, Collection)}, but only loads the
+   * attributes matching {@code attributeNames}. Names ending in {@code *} match as a prefix. A
+   * {@code null} collection loads all attributes.
+   */
+  Map<String, Map<String, List<String>>> getOrganizationsAttributes(
+      RealmModel realm, Collection<String> organizationIds, Collection<String> attributeNames);
+
+  default Stream<OrganizationModel> searchForOrganizationStream(
+      RealmModel realm,
+      Map<String, String> attributes,
+      Integer firstResult,
+      Integer maxResults,
+      Optional<UserModel> member) {
+    return searchForOrganizationStream(
+        realm, attributes, OrganizationSearchMode.CONTAINS, firstResult, maxResults, member);
+  }
+
+  /**
+   * Organizations matching the attributes, ordered by name. The {@code name} attribute is matched
+   * against names and display names as the mode says; a {@link OrganizationSearchMode#FUZZY}
+   * search that the database can rank is ordered by similarity instead.
+   */
   Stream<OrganizationModel> searchForOrganizationStream(
       RealmModel realm,
       Map<String, String> attributes,
+      OrganizationSearchMode mode,
       Integer firstResult,
       Integer maxResults,
       Optional<UserModel> member);
 
-  Long getOrganizationsCount(RealmModel realm, String search, Map<String, String> attributes);
+  /**
+   * Same as {@link #searchForOrganizationStream}, but paged by keyset on name and id instead of by
+   * offset, so that deep pages cost as much as the first. Pages are always ordered by name, so a
+   * {@link OrganizationSearchMode#FUZZY} search is not ranked by similarity.
+   *
+   * @param after cursor of the previous page, or {@code null} for the first page
+   */
+  KeysetPage<OrganizationModel> searchForOrganizationPage(
+      RealmModel realm,
+      Map<String, String> attributes,
+      OrganizationSearchMode mode,
+      PageCursor after,
+      int maxResults,
+      Optional<UserModel> member);
+
+  default Long getOrganizationsCount(
+      RealmModel realm, String search, Map<String, String> attributes) {
+    return getOrganizationsCount(realm, search, attributes, OrganizationSearchMode.CONTAINS);
+  }
+
+  Long getOrganizationsCount(
+      RealmModel realm, String search, Map<String, String> attributes, OrganizationSearchMode mode);
+
+  /**
+   * A page of members of the organization, with the user fields of a brief representation, loaded
+   * in a single query joining the members to the users. Same filters and order as {@link
+   * OrganizationModel#searchForMembersStream(String, Integer, Integer, boolean)}.
+   */
+  Stream<OrganizationMemberSummary> searchForMemberSummariesStream(
+      RealmModel realm,
+      String organizationId,
+      String search,
+      Integer firstResult,
+      Integer maxResults,
+      boolean excludeAdminAccounts);
+
+  /**
+   * Same as {@link #searchForMemberSummariesStream}, but paged by keyset on membership creation
+   * time and id instead of by offset.
+   *
+   * @param after cursor of the previous page, or {@code null} for the first page
+   */
+  KeysetPage<OrganizationMemberSummary> searchForMemberSummariesPage(
+      RealmModel realm,
+      String organizationId,
+      String search,
+      PageCursor after,
+      int maxResults,
+      boolean excludeAdminAccounts);
 
   boolean removeOrganization(RealmModel realm, String id);
 
@@ -44,11 +139,38 @@ public interface OrganizationProvider extends Provider {
 
   Stream<InvitationModel> getUserInvitationsStream(RealmModel realm, String email);
 
+  /**
+   * Invitations of the organization for the email. Looked up through the unique key on organization
+   * and email, without loading the other invitations of the organization or realm.
+   */
+  Stream<InvitationModel> getOrganizationInvitationsStream(
+      RealmModel realm, String organizationId, String email);
+
   InvitationModel getInvitationById(RealmModel realm, String id);
 
   Stream<IdentityProviderModel> getIdentityProvidersStream(
       RealmModel realm, String configKey, String configValue, boolean exact);
 
+  /**
+   * Routing table from organization domain to the enabled IdPs of the organizations owning it, for
+   * the whole realm.
+   */
+  DomainRoutes getDomainRoutes(RealmModel realm);
+
+  /**
+   * Routing table for home IdP discovery that answers at least for the domain and its parent
+   * domains. It may cover the whole realm.
+   */
+  default DomainRoutes getDomainRoutes(RealmModel realm, String domain) {
+    return getDomainRoutes(realm);
+  }
+
+  /**
+   * Rebuilds the routing table of the realm after a change the provider can't see, such as an IdP
+   * updated through the Keycloak admin API.
+   */
+  default void invalidateDomainRoutes(RealmModel realm) {}
+
   Collection<? extends OrganizationModel> getOrganizationsMissingRole(
       String roleName, int batchSize);
 
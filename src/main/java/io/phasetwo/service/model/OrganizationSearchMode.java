@@ -0,0 +1,35 @@
+package io.phasetwo.service.model;
+
+import java.util.Locale;
+
+/** How the {@code name} filter of an organization search matches names and display names. */
+public enum OrganizationSearchMode {
+  /** Name or display name contains the term. */
+  CONTAINS,
+  /**
+   * Name or display name starts with the term. Served by the indexes on {@code lower(NAME)} and
+   * {@code lower(DISPLAY_NAME)} on databases with expression indexes.
+   */
+  PREFIX,
+  /**
+   * Name or display name contains the term or is similar to it, most similar first. Needs the
+   * {@code pg_trgm} extension of PostgreSQL; searches the same as {@link #CONTAINS} elsewhere.
+   */
+  FUZZY;
+
+  /** {@code LIKE} pattern for the lowercased term. */
+  public String pattern(String term) {
+    String search = term.toLowerCase();
+    return this == PREFIX ? search + "%" : "%" + search + "%";
+  }
+
+  /**
+   * Mode for a query parameter value, ignoring case. {@code null} or empty is {@link #CONTAINS}.
+   *
+   * @throws IllegalArgumentException if the value isn't a mode
+   */
+  public static OrganizationSearchMode fromString(String mode) {
+    if (mode == null || mode.isEmpty()) return CONTAINS;
+    return valueOf(mode.toUpperCase(Locale.ROOT));
+  }
+}
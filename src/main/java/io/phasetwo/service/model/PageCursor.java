@@ -0,0 +1,59 @@
+package io.phasetwo.service.model;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.Date;
+
+/**
+ * Position after the last row of a keyset page: the sort key and the id of that row. Encoded as
+ * an opaque URL safe string for clients, which pass it back to get the following page.
+ */
+public class PageCursor {
+
+  private static final char SEPARATOR = '\n';
+
+  private final String key;
+  private final String id;
+
+  public PageCursor(String key, String id) {
+    this.key = key;
+    this.id = id;
+  }
+
+  public PageCursor(Date key, String id) {
+    this(String.valueOf(key.getTime()), id);
+  }
+
+  public String getKey() {
+    return key;
+  }
+
+  /** The key of a cursor over a timestamp ordering. */
+  public Date getKeyAsDate() {
+    try {
+      return new Date(Long.parseLong(key));
+    } catch (NumberFormatException e) {
+      throw new IllegalArgumentException("Invalid cursor", e);
+    }
+  }
+
+  public String getId() {
+    return id;
+  }
+
+  public String encode() {
+    return Base64.getUrlEncoder()
+        .withoutPadding()
+        .encodeToString((key + SEPARATOR + id).getBytes(StandardCharsets.UTF_8));
+  }
+
+  /**
+   * @throws IllegalArgumentException if the cursor wasn't created by {@link #encode()}
+   */
+  public static PageCursor decode(String cursor) {
+    String decoded = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+    int separator = decoded.lastIndexOf(SEPARATOR);
+    if (separator < 0) throw new IllegalArgumentException("Invalid cursor");
+    return new PageCursor(decoded.substring(0, separator), decoded.substring(separator + 1));
+  }
+}
@@ -0,0 +1,27 @@
+package io.phasetwo.service.model;
+
+/** An organization and whether a given user is a member of it. */
+public class ResolvedOrganization {
+
+  private final String organizationId;
+  private final String organizationName;
+  private final boolean member;
+
+  public ResolvedOrganization(String organizationId, String organizationName, boolean member) {
+    this.organizationId = organizationId;
+    this.organizationName = organizationName;
+    this.member = member;
+  }
+
+  public String getOrganizationId() {
+    return organizationId;
+  }
+
+  public String getOrganizationName() {
+    return organizationName;
+  }
+
+  public boolean isMember() {
+    return member;
+  }
+}
@@ -0,0 +1,47 @@
+package io.phasetwo.service.model;
+
+import com.google.common.collect.ImmutableList;
+import java.util.List;
+
+/** A user's membership in an organization, with the names of the roles granted to the user. */
+public class UserOrganizationRoles {
+
+  private final String organizationId;
+  private final String organizationName;
+  private final String organizationDisplayName;
+  private final String organizationUrl;
+  private final List<String> roleNames;
+
+  public UserOrganizationRoles(
+      String organizationId,
+      String organizationName,
+      String organizationDisplayName,
+      String organizationUrl,
+      List<String> roleNames) {
+    this.organizationId = organizationId;
+    this.organizationName = organizationName;
+    this.organizationDisplayName = organizationDisplayName;
+    this.organizationUrl = organizationUrl;
+    this.roleNames = ImmutableList.copyOf(roleNames);
+  }
+
+  public String getOrganizationId() {
+    return organizationId;
+  }
+
+  public String getOrganizationName() {
+    return organizationName;
+  }
+
+  public String getOrganizationDisplayName() {
+    return organizationDisplayName;
+  }
+
+  public String getOrganizationUrl() {
+    return organizationUrl;
+  }
+
+  public List<String> getRoleNames() {
+    return roleNames;
+  }
+}
@@ -0,0 +1,102 @@
+package io.phasetwo.service.model.cache;
+
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSet;
+import io.phasetwo.service.model.OrganizationModel;
+import io.phasetwo.service.model.OrganizationRoleModel;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * Immutable snapshot of the rarely changing parts of an organization. Membership, invitations and
+ * role mappings are intentionally not part of the snapshot and are always read from the database.
+ */
+public class CachedOrganization {
+
+  private final String id;
+  private final String realmId;
+  private final String name;
+  private final String displayName;
+  private final String url;
+  private final Set<String> domains;
+  private final Map<String, List<String>> attributes;
+  private final Set<String> roleNames;
+
+  public CachedOrganization(
+      String id,
+      String realmId,
+      String name,
+      String displayName,
+      String url,
+      Set<String> domains,
+      Map<String, List<String>> attributes,
+      Set<String> roleNames) {
+    this.id = id;
+    this.realmId = realmId;
+    this.name = name;
+    this.displayName = displayName;
+    this.url = url;
+    this.domains = domains == null ? ImmutableSet.of() : ImmutableSet.copyOf(domains);
+    // attribute values are nullable, so copy into unmodifiable lists rather than ImmutableList
+    ImmutableMap.Builder<String, List<String>> builder = ImmutableMap.builder();
+    if (attributes != null) {
+      attributes.forEach(
+          (k, v) ->
+              builder.put(
+                  k,
+                  v == null
+                      ? Collections.emptyList()
+                      : Collections.unmodifiableList(new ArrayList<>(v))));
+    }
+    this.attributes = builder.build();
+    this.roleNames = roleNames == null ? ImmutableSet.of() : ImmutableSet.copyOf(roleNames);
+  }
+
+  public static CachedOrganization of(String realmId, OrganizationModel org) {
+    return new CachedOrganization(
+        org.getId(),
+        realmId,
+        org.getName(),
+        org.getDisplayName(),
+        org.getUrl(),
+        org.getDomains(),
+        org.getAttributes(),
+        org.getRolesStream().map(OrganizationRoleModel::getName).collect(Collectors.toSet()));
+  }
+
+  public String getId() {
+    return id;
+  }
+
+  public String getRealmId() {
+    return realmId;
+  }
+
+  public String getName() {
+    return name;
+  }
+
+  public String getDisplayName() {
+    return displayName;
+  }
+
+  public String getUrl() {
+    return url;
+  }
+
+  public Set<String> getDomains() {
+    return domains;
+  }
+
+  public Map<String, List<String>> getAttributes() {
+    return attributes;
+  }
+
+  public Set<String> getRoleNames() {
+    return roleNames;
+  }
+}
@@ -0,0 +1,420 @@
+package io.phasetwo.service.model.cache;
+
+import io.phasetwo.service.model.DomainRoutes;
+import io.phasetwo.service.model.InvitationModel;
+import io.phasetwo.service.model.KeysetPage;
+import io.phasetwo.service.model.OrganizationMemberSummary;
+import io.phasetwo.service.model.OrganizationModel;
+import io.phasetwo.service.model.OrganizationProvider;
+import io.phasetwo.service.model.OrganizationSearchMode;
+import io.phasetwo.service.model.PageCursor;
+import io.phasetwo.service.model.ResolvedOrganization;
+import io.phasetwo.service.model.UserOrganizationRoles;
+import io.phasetwo.service.model.jpa.JpaOrganizationProviderFactory;
+import io.phasetwo.service.model.jpa.entity.ExtOrganizationEntity;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import lombok.extern.jbosslog.JBossLog;
+import org.keycloak.cluster.ClusterProvider;
+import org.keycloak.common.util.MultivaluedHashMap;
+import org.keycloak.models.AbstractKeycloakTransaction;
+import org.keycloak.models.IdentityProviderModel;
+import org.keycloak.models.KeycloakSession;
+import org.keycloak.models.RealmModel;
+import org.keycloak.models.UserModel;
+
+/**
+ * Session-scoped cache layer in front of the JPA {@link OrganizationProvider}, analogous to
+ * Keycloak's {@code RealmCacheSession}. Lookups by id and name are served from the node-local
+ * {@link OrganizationCache}; writes made through the returned models are collected and, after the
+ * transaction commits, evicted locally and broadcast to the other nodes of the cluster.
+ */
+@JBossLog
+public class CachedOrganizationProvider implements OrganizationProvider {
+
+  protected final KeycloakSession session;
+  protected final OrganizationCache cache;
+  protected final Set<String> invalidations = new HashSet<>();
+  protected final Set<String> realmInvalidations = new HashSet<>();
+  protected final Set<String> userInvalidations = new HashSet<>();
+  protected final Set<String> routeInvalidations = new HashSet<>();
+  protected boolean transactionActive;
+  protected OrganizationProvider delegate;
+
+  public CachedOrganizationProvider(KeycloakSession session, OrganizationCache cache) {
+    this.session = session;
+    this.cache = cache;
+  }
+
+  public OrganizationProvider getDelegate() {
+    if (delegate == null) {
+      delegate =
+          session.getProvider(
+              OrganizationProvider.class, JpaOrganizationProviderFactory.PROVIDER_ID);
+    }
+    return delegate;
+  }
+
+  public boolean isInvalid(String id) {
+    return invalidations.contains(id);
+  }
+
+  public void registerInvalidation(String id) {
+    invalidations.add(id);
+    enlistInvalidationTransaction();
+  }
+
+  protected void registerRealmInvalidation(String realmId) {
+    realmInvalidations.add(realmId);
+    enlistInvalidationTransaction();
+  }
+
+  public void registerUserInvalidation(RealmModel realm, String userId) {
+    userInvalidations.add(OrganizationCache.userKey(realm.getId(), userId));
+    enlistInvalidationTransaction();
+  }
+
+  /** Registers a change to the domains or linked IdPs of an organization in the realm. */
+  public void registerDomainRoutesInvalidation(String realmId) {
+    routeInvalidations.add(realmId);
+    enlistInvalidationTransaction();
+  }
+
+  protected boolean isUserInvalid(RealmModel realm, String userId) {
+    return userInvalidations.contains(OrganizationCache.userKey(realm.getId(), userId));
+  }
+
+  protected boolean isRealmInvalid(String realmId) {
+    return realmInvalidations.contains(realmId);
+  }
+
+  private void enlistInvalidationTransaction() {
+    if (transactionActive) return;
+    transactionActive = true;
+    session
+        .getTransactionManager()
+        .enlistAfterCompletion(
+            new AbstractKeycloakTransaction() {
+              @Override
+              protected void commitImpl() {
+                invalidate();
+              }
+
+              @Override
+              protected void rollbackImpl() {
+                // nothing was written, so the cached snapshots are still current
+              }
+            });
+  }
+
+  protected void invalidate() {
+    if (invalidations.isEmpty()
+        && realmInvalidations.isEmpty()
+        && userInvalidations.isEmpty()
+        && routeInvalidations.isEmpty()) return;
+    cache.invalidate(invalidations, realmInvalidations, userInvalidations, routeInvalidations);
+    ClusterProvider cluster = session.getProvider(ClusterProvider.class);
+    if (cluster == null) return;
+    try {
+      cluster.notify(
+          CachedOrganizationProviderFactory.INVALIDATION_EVENT,
+          new OrganizationInvalidationEvent(
+              invalidations, realmInvalidations, userInvalidations, routeInvalidations),
+          true);
+    } catch (Exception e) {
+      // the database transaction has already committed, so don't fail the request over this
+      log.warnf(e, "Unable to send organization cache invalidation to the cluster");
+    }
+  }
+
+  protected OrganizationModel wrap(RealmModel realm, OrganizationModel org) {
+    if (org == null) return null;
+    return new OrganizationAdapter(this, realm, org);
+  }
+
+  @Override
+  public OrganizationModel createOrganization(
+      RealmModel realm, String name, UserModel createdBy, boolean admin) {
+    OrganizationModel org = getDelegate().createOrganization(realm, name, createdBy, admin);
+    registerInvalidation(org.getId());
+    // the delegate grants the creator membership and roles
+    if (createdBy != null) registerUserInvalidation(realm, createdBy.getId());
+    return wrap(realm, org);
+  }
+
+  @Override
+  public OrganizationModel createOrganization(
+      RealmModel realm, String id, String name, UserModel createdBy, boolean admin) {
+    OrganizationModel org = getDelegate().createOrganization(realm, id, name, createdBy, admin);
+    registerInvalidation(org.getId());
+    // the delegate grants the creator membership and roles
+    if (createdBy != null) registerUserInvalidation(realm, createdBy.getId());
+    return wrap(realm, org);
+  }
+
+  @Override
+  public OrganizationModel getOrganizationById(RealmModel realm, String id) {
+    if (id == null || isInvalid(id) || isRealmInvalid(realm.getId())) {
+      return wrap(realm, getDelegate().getOrganizationById(realm, id));
+    }
+    CachedOrganization cached = cache.get(id);
+    if (cached != null) {
+      log.tracef("Organization %s found in cache", id);
+      if (!realm.getId().equals(cached.getRealmId())) return null;
+      return new OrganizationAdapter(this, realm, cached, null);
+    }
+    long revision = cache.getCurrentRevision();
+    OrganizationModel org = getDelegate().getOrganizationById(realm, id);
+    if (org == null) return null;
+    return cache(realm, org, revision);
+  }
+
+  @Override
+  public OrganizationModel getOrganizationByName(RealmModel realm, String name) {
+    if (name == null || isRealmInvalid(realm.getId())) {
+      return wrap(realm, getDelegate().getOrganizationByName(realm, name));
+    }
+    String id = cache.getIdByName(realm.getId(), name);
+    if (id != null) {
+      OrganizationModel org = getOrganizationById(realm, id);
+      // the name index may be stale after a rename on another node
+      if (org != null && name.equals(org.getName())) return org;
+    }
+    long revision = cache.getCurrentRevision();
+    OrganizationModel org = getDelegate().getOrganizationByName(realm, name);
+    if (org == null) return null;
+    if (isInvalid(org.getId())) return wrap(realm, org);
+    return cache(realm, org, revision);
+  }
+
+  private OrganizationModel cache(RealmModel realm, OrganizationModel org, long revision) {
+    CachedOrganization cached = CachedOrganization.of(realm.getId(), org);
+    cache.addRevisioned(cached, revision);
+    return new OrganizationAdapter(this, realm, cached, org);
+  }
+
+  @Override
+  public Stream<OrganizationModel> getOrganizationsStreamForDomain(
+      RealmModel realm, String domain, boolean verified) {
+    return getDelegate()
+        .getOrganizationsStreamForDomain(realm, domain, verified)
+        .map(o -> wrap(realm, o));
+  }
+
+  @Override
+  public Stream<OrganizationModel> getUserOrganizationsStream(RealmModel realm, UserModel user) {
+    return getDelegate().getUserOrganizationsStream(realm, user).map(o -> wrap(realm, o));
+  }
+
+  @Override
+  public Stream<OrganizationMemberSummary> searchForMemberSummariesStream(
+      RealmModel realm,
+      String organizationId,
+      String search,
+      Integer firstResult,
+      Integer maxResults,
+      boolean excludeAdminAccounts) {
+    return getDelegate()
+        .searchForMemberSummariesStream(
+            realm, organizationId, search, firstResult, maxResults, excludeAdminAccounts);
+  }
+
+  @Override
+  public KeysetPage<OrganizationMemberSummary> searchForMemberSummariesPage(
+      RealmModel realm,
+      String organizationId,
+      String search,
+      PageCursor after,
+      int maxResults,
+      boolean excludeAdminAccounts) {
+    return getDelegate()
+        .searchForMemberSummariesPage(
+            realm, organizationId, search, after, maxResults, excludeAdminAccounts);
+  }
+
+  @Override
+  public Stream<ResolvedOrganization> resolveOrganizationsStream(
+      RealmModel realm, Collection<String> organizationIds, UserModel user) {
+    return getDelegate().resolveOrganizationsStream(realm, organizationIds, user);
+  }
+
+  @Override
+  public Stream<UserOrganizationRoles> getUserOrganizationRolesStream(
+      RealmModel realm, UserModel user) {
+    if (isRealmInvalid(realm.getId())
+        || isUserInvalid(realm, user.getId())
+        || !invalidations.isEmpty()) {
+      return getDelegate().getUserOrganizationRolesStream(realm, user);
+    }
+    List<UserOrganizationRoles> cached =
+        cache.getUserOrganizationRoles(realm.getId(), user.getId());
+    if (cached == null) {
+      long revision = cache.getCurrentRevision();
+      cached = getDelegate().getUserOrganizationRolesStream(realm, user).toList();
+      cache.addUserOrganizationRolesRevisioned(realm.getId(), user.getId(), cached, revision);
+    }
+    return cached.stream();
+  }
+
+  @Override
+  public Map<String, Map<String, List<String>>> getOrganizationsAttributes(
+      RealmModel realm, Collection<String> organizationIds, Collection<String> attributeNames) {
+    Map<String, Map<String, List<String>>> attributes = new HashMap<>();
+    if (organizationIds == null || organizationIds.isEmpty()) return attributes;
+    Set<String> misses = new HashSet<>();
+    for (String id : organizationIds) {
+      CachedOrganization cached =
+          isInvalid(id) || isRealmInvalid(realm.getId()) ? null : cache.get(id);
+      if (cached == null) {
+        misses.add(id);
+      } else if (realm.getId().equals(cached.getRealmId())) {
+        MultivaluedHashMap<String, String> copy = new MultivaluedHashMap<>();
+        cached.getAttributes().entrySet().stream()
+            .filter(e -> isIncluded(attributeNames, e.getKey()))
+            .forEach(e -> copy.addAll(e.getKey(), e.getValue()));
+        if (!copy.isEmpty()) attributes.put(id, copy);
+      }
+    }
+    if (!misses.isEmpty()) {
+      attributes.putAll(getDelegate().getOrganizationsAttributes(realm, misses, attributeNames));
+    }
+    return attributes;
+  }
+
+  private static boolean isIncluded(Collection<String> attributeNames, String name) {
+    if (attributeNames == null) return true;
+    for (String n : attributeNames) {
+      if (n.endsWith("*") ? name.startsWith(n.substring(0, n.length() - 1)) : name.equals(n))
+        return true;
+    }
+    return false;
+  }
+
+  @Override
+  public Stream<OrganizationModel> searchForOrganizationStream(
+      RealmModel realm,
+      Map<String, String> attributes,
+      OrganizationSearchMode mode,
+      Integer firstResult,
+      Integer maxResults,
+      Optional<UserModel> member) {
+    return getDelegate()
+        .searchForOrganizationStream(realm, attributes, mode, firstResult, maxResults, member)
+        .map(o -> wrap(realm, o));
+  }
+
+  @Override
+  public KeysetPage<OrganizationModel> searchForOrganizationPage(
+      RealmModel realm,
+      Map<String, String> attributes,
+      OrganizationSearchMode mode,
+      PageCursor after,
+      int maxResults,
+      Optional<UserModel> member) {
+    return getDelegate()
+        .searchForOrganizationPage(realm, attributes, mode, after, maxResults, member)
+        .map(o -> wrap(realm, o));
+  }
+
+  @Override
+  public Long getOrganizationsCount(
+      RealmModel realm,
+      String search,
+      Map<String, String> attributes,
+      OrganizationSearchMode mode) {
+    return getDelegate().getOrganizationsCount(realm, search, attributes, mode);
+  }
+
+  @Override
+  public boolean removeOrganization(RealmModel realm, String id) {
+    registerInvalidation(id);
+    registerDomainRoutesInvalidation(realm.getId());
+    return getDelegate().removeOrganization(realm, id);
+  }
+
+  @Override
+  public void removeOrganizations(RealmModel realm) {
+    registerRealmInvalidation(realm.getId());
+    getDelegate().removeOrganizations(realm);
+  }
+
+  @Override
+  public Stream<InvitationModel> getUserInvitationsStream(RealmModel realm, UserModel user) {
+    return getDelegate().getUserInvitationsStream(realm, user);
+  }
+
+  @Override
+  public Stream<InvitationModel> getUserInvitationsStream(RealmModel realm, String email) {
+    return getDelegate().getUserInvitationsStream(realm, email);
+  }
+
+  @Override
+  public Stream<InvitationModel> getOrganizationInvitationsStream(
+      RealmModel realm, String organizationId, String email) {
+    return getDelegate().getOrganizationInvitationsStream(realm, organizationId, email);
+  }
+
+  @Override
+  public InvitationModel getInvitationById(RealmModel realm, String id) {
+    return getDelegate().getInvitationById(realm, id);
+  }
+
+  @Override
+  public Stream<IdentityProviderModel> getIdentityProvidersStream(
+      RealmModel realm, String configKey, String configValue, boolean exact) {
+    return getDelegate().getIdentityProvidersStream(realm, configKey, configValue, exact);
+  }
+
+  @Override
+  public DomainRoutes getDomainRoutes(RealmModel realm) {
+    return getDelegate().getDomainRoutes(realm);
+  }
+
+  /**
+   * The table of the whole realm if the cache has a current one. Otherwise the table is loaded in
+   * the background, and the point query of the delegate answers in the meantime.
+   */
+  @Override
+  public DomainRoutes getDomainRoutes(RealmModel realm, String domain) {
+    if (isRealmInvalid(realm.getId()) || routeInvalidations.contains(realm.getId())) {
+      return getDelegate().getDomainRoutes(realm, domain);
+    }
+    DomainRoutes routes = cache.getDomainRoutes(realm.getId());
+    if (routes != null) return routes;
+    cache.loadDomainRoutes(realm.getId());
+    return getDelegate().getDomainRoutes(realm, domain);
+  }
+
+  @Override
+  public void invalidateDomainRoutes(RealmModel realm) {
+    registerDomainRoutesInvalidation(realm.getId());
+  }
+
+  @Override
+  public Collection<? extends OrganizationModel> getOrganizationsMissingRole(
+      String roleName, int batchSize) {
+    return getDelegate().getOrganizationsMissingRole(roleName, batchSize).stream()
+        .map(o -> wrap(o.getRealm(), o))
+        .collect(Collectors.toList());
+  }
+
+  @Override
+  public long countOrphanedOrganizations() {
+    return getDelegate().countOrphanedOrganizations();
+  }
+
+  @Override
+  public Stream<ExtOrganizationEntity> findByNames(RealmModel realm, Set<String> names) {
+    return getDelegate().findByNames(realm, names);
+  }
+
+  @Override
+  public void close() {}
+}
@@ -0,0 +1,112 @@
+package io.phasetwo.service.model.cache;
+
+import com.google.auto.service.AutoService;
+import io.phasetwo.service.model.DomainRoutes;
+import io.phasetwo.service.model.OrganizationProvider;
+import io.phasetwo.service.model.OrganizationProviderFactory;
+import io.phasetwo.service.model.jpa.JpaOrganizationProviderFactory;
+import lombok.extern.jbosslog.JBossLog;
+import org.keycloak.Config.Scope;
+import org.keycloak.cluster.ClusterProvider;
+import org.keycloak.executors.ExecutorsProvider;
+import org.keycloak.models.KeycloakSession;
+import org.keycloak.models.KeycloakSessionFactory;
+import org.keycloak.models.RealmModel;
+import org.keycloak.models.utils.KeycloakModelUtils;
+import org.keycloak.models.utils.PostMigrationEvent;
+
+/**
+ * Default {@link OrganizationProvider}, caching organization lookups in front of the JPA provider.
+ * Can be turned off with {@code --spi-organization-provider-cached-organization-enabled=false}.
+ */
+@JBossLog
+@AutoService(OrganizationProviderFactory.class)
+public class CachedOrganizationProviderFactory implements OrganizationProviderFactory {
+
+  public static final String PROVIDER_ID = "cached-organization";
+  public static final String INVALIDATION_EVENT = "ORGANIZATION_CACHE_INVALIDATION";
+  private static final String DOMAIN_ROUTES_TASK = "organization-domain-routes";
+
+  private OrganizationCache cache;
+
+  @Override
+  public String getId() {
+    return PROVIDER_ID;
+  }
+
+  @Override
+  public int order() {
+    return 10;
+  }
+
+  @Override
+  public OrganizationProvider create(KeycloakSession session) {
+    return new CachedOrganizationProvider(session, cache);
+  }
+
+  @Override
+  public void init(Scope config) {
+    long maxSize = config.getLong("maxSize", 10000L);
+    long expirationInSecs = config.getLong("expirationInSecs", 3600L);
+    long domainRoutesMaxSize =
+        config.getLong("domainRoutesMaxSize", OrganizationCache.DEFAULT_DOMAIN_ROUTES_MAX_SIZE);
+    log.debugf(
+        "Organization cache maxSize=%d expirationInSecs=%d domainRoutesMaxSize=%d",
+        maxSize, expirationInSecs, domainRoutesMaxSize);
+    cache = new OrganizationCache(maxSize, expirationInSecs, domainRoutesMaxSize);
+  }
+
+  @Override
+  public void postInit(KeycloakSessionFactory factory) {
+    factory.register(
+        event -> {
+          if (event instanceof PostMigrationEvent) {
+            KeycloakModelUtils.runJobInTransaction(factory, this::registerClusterListener);
+            KeycloakModelUtils.runJobInTransaction(
+                factory, session -> registerDomainRoutesLoader(factory, session));
+          }
+        });
+  }
+
+  private void registerDomainRoutesLoader(KeycloakSessionFactory factory, KeycloakSession session) {
+    cache.setDomainRoutesLoader(
+        session.getProvider(ExecutorsProvider.class).getExecutor(DOMAIN_ROUTES_TASK),
+        realmId -> loadDomainRoutes(factory, realmId));
+  }
+
+  private static DomainRoutes loadDomainRoutes(KeycloakSessionFactory factory, String realmId) {
+    return KeycloakModelUtils.runJobInTransactionWithResult(
+        factory,
+        session -> {
+          RealmModel realm = session.realms().getRealm(realmId);
+          if (realm == null) return null;
+          return session
+              .getProvider(OrganizationProvider.class, JpaOrganizationProviderFactory.PROVIDER_ID)
+              .getDomainRoutes(realm);
+        });
+  }
+
+  private void registerClusterListener(KeycloakSession session) {
+    ClusterProvider cluster = session.getProvider(ClusterProvider.class);
+    if (cluster == null) {
+      log.warn(
+          "No ClusterProvider available. Organization cache will only be invalidated locally.");
+      return;
+    }
+    cluster.registerListener(
+        INVALIDATION_EVENT,
+        event -> {
+          if (event instanceof OrganizationInvalidationEvent) {
+            OrganizationInvalidationEvent e = (OrganizationInvalidationEvent) event;
+            log.debugf("Received %s", e);
+            cache.invalidate(
+                e.getOrganizationIds(), e.getRealmIds(), e.getUserKeys(), e.getRouteRealmIds());
+          }
+        });
+  }
+
+  @Override
+  public void close() {
+    if (cache != null) cache.clear();
+  }
+}
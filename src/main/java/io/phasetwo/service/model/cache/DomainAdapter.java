@@ -0,0 +1,45 @@
+package io.phasetwo.service.model.cache;
+
+import io.phasetwo.service.model.DomainModel;
+import io.phasetwo.service.model.OrganizationModel;
+
+/**
+ * Organization domain that registers a domain routes invalidation with the {@link
+ * CachedOrganizationProvider} when it is verified.
+ */
+public class DomainAdapter implements DomainModel {
+
+  protected final CachedOrganizationProvider cacheSession;
+  protected final OrganizationModel organization;
+  protected final DomainModel delegate;
+
+  public DomainAdapter(
+      CachedOrganizationProvider cacheSession,
+      OrganizationModel organization,
+      DomainModel delegate) {
+    this.cacheSession = cacheSession;
+    this.organization = organization;
+    this.delegate = delegate;
+  }
+
+  @Override
+  public String getDomain() {
+    return delegate.getDomain();
+  }
+
+  @Override
+  public boolean isVerified() {
+    return delegate.isVerified();
+  }
+
+  @Override
+  public void setVerified(boolean verified) {
+    cacheSession.registerDomainRoutesInvalidation(organization.getRealm().getId());
+    delegate.setVerified(verified);
+  }
+
+  @Override
+  public OrganizationModel getOrganization() {
+    return organization;
+  }
+}
@@ -0,0 +1,314 @@
+package io.phasetwo.service.model.cache;
+
+import io.phasetwo.service.model.DomainModel;
+import io.phasetwo.service.model.InvitationModel;
+import io.phasetwo.service.model.KeysetPage;
+import io.phasetwo.service.model.OrganizationMemberModel;
+import io.phasetwo.service.model.OrganizationModel;
+import io.phasetwo.service.model.OrganizationRoleModel;
+import io.phasetwo.service.model.PageCursor;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Stream;
+import org.keycloak.common.util.MultivaluedHashMap;
+import org.keycloak.models.IdentityProviderModel;
+import org.keycloak.models.RealmModel;
+import org.keycloak.models.UserModel;
+
+/**
+ * Organization backed by a {@link CachedOrganization} snapshot. Reads of the snapshot fields are
+ * served from memory; everything else, and every read after a write, goes to the delegate model
+ * from the underlying provider. Writes register an invalidation with the {@link
+ * CachedOrganizationProvider}.
+ */
+public class OrganizationAdapter implements OrganizationModel {
+
+  protected final CachedOrganizationProvider cacheSession;
+  protected final RealmModel realm;
+  protected final CachedOrganization cached;
+  protected final String id;
+  protected OrganizationModel updated;
+  protected boolean invalidated;
+
+  public OrganizationAdapter(
+      CachedOrganizationProvider cacheSession,
+      RealmModel realm,
+      CachedOrganization cached,
+      OrganizationModel delegate) {
+    this.cacheSession = cacheSession;
+    this.realm = realm;
+    this.cached = cached;
+    this.id = cached.getId();
+    this.updated = delegate;
+  }
+
+  /** Adapter without a snapshot, used for organizations returned by search and list calls. */
+  public OrganizationAdapter(
+      CachedOrganizationProvider cacheSession, RealmModel realm, OrganizationModel delegate) {
+    this.cacheSession = cacheSession;
+    this.realm = realm;
+    this.cached = null;
+    this.id = delegate.getId();
+    this.updated = delegate;
+  }
+
+  protected boolean isUpdated() {
+    return cached == null || invalidated || cacheSession.isInvalid(id);
+  }
+
+  protected OrganizationModel getDelegate() {
+    if (updated == null) {
+      updated = cacheSession.getDelegate().getOrganizationById(realm, id);
+      if (updated == null) {
+        throw new IllegalStateException("Not found in database");
+      }
+    }
+    return updated;
+  }
+
+  protected OrganizationModel getDelegateForUpdate() {
+    if (!invalidated) {
+      cacheSession.registerInvalidation(id);
+      invalidated = true;
+    }
+    return getDelegate();
+  }
+
+  @Override
+  public String getId() {
+    return id;
+  }
+
+  @Override
+  public String getName() {
+    if (isUpdated()) return getDelegate().getName();
+    return cached.getName();
+  }
+
+  @Override
+  public void setName(String name) {
+    getDelegateForUpdate().setName(name);
+  }
+
+  @Override
+  public String getDisplayName() {
+    if (isUpdated()) return getDelegate().getDisplayName();
+    return cached.getDisplayName();
+  }
+
+  @Override
+  public void setDisplayName(String displayName) {
+    getDelegateForUpdate().setDisplayName(displayName);
+  }
+
+  @Override
+  public Set<String> getDomains() {
+    if (isUpdated()) return getDelegate().getDomains();
+    return new HashSet<>(cached.getDomains());
+  }
+
+  @Override
+  public void setDomains(Set<String> domains) {
+    cacheSession.registerDomainRoutesInvalidation(realm.getId());
+    getDelegateForUpdate().setDomains(domains);
+  }
+
+  @Override
+  public DomainModel getDomain(String name) {
+    DomainModel domain = getDelegate().getDomain(name);
+    if (domain == null) return null;
+    return new DomainAdapter(cacheSession, this, domain);
+  }
+
+  @Override
+  public String getUrl() {
+    if (isUpdated()) return getDelegate().getUrl();
+    return cached.getUrl();
+  }
+
+  @Override
+  public void setUrl(String url) {
+    getDelegateForUpdate().setUrl(url);
+  }
+
+  @Override
+  public RealmModel getRealm() {
+    return realm;
+  }
+
+  @Override
+  public UserModel getCreatedBy() {
+    return getDelegate().getCreatedBy();
+  }
+
+  @Override
+  public Map<String, List<String>> getAttributes() {
+    if (isUpdated()) return getDelegate().getAttributes();
+    MultivaluedHashMap<String, String> attributes = new MultivaluedHashMap<>();
+    cached.getAttributes().forEach(attributes::addAll);
+    return attributes;
+  }
+
+  @Override
+  public void removeAttributes() {
+    getDelegateForUpdate().removeAttributes();
+  }
+
+  @Override
+  public void removeAttribute(String name) {
+    getDelegateForUpdate().removeAttribute(name);
+  }
+
+  @Override
+  public void setAttribute(String name, List<String> values) {
+    getDelegateForUpdate().setAttribute(name, values);
+  }
+
+  @Override
+  public Long getMembersCount(boolean excludeAdminAccounts) {
+    return getDelegate().getMembersCount(excludeAdminAccounts);
+  }
+
+  @Override
+  public Stream<UserModel> getMembersStream(boolean excludeAdminAccounts) {
+    return getDelegate().getMembersStream(excludeAdminAccounts);
+  }
+
+  @Override
+  public Stream<UserModel> searchForMembersStream(
+      String search, Integer firstResult, Integer maxResults, boolean excludeAdminAccounts) {
+    return getDelegate()
+        .searchForMembersStream(search, firstResult, maxResults, excludeAdminAccounts);
+  }
+
+  @Override
+  public KeysetPage<UserModel> searchForMembersPage(
+      String search, PageCursor after, int maxResults, boolean excludeAdminAccounts) {
+    return getDelegate().searchForMembersPage(search, after, maxResults, excludeAdminAccounts);
+  }
+
+  @Override
+  public Stream<OrganizationMemberModel> getOrganizationMembersStream() {
+    return getDelegate().getOrganizationMembersStream();
+  }
+
+  @Override
+  public Stream<OrganizationMemberModel> searchForOrganizationMembersStream(
+      String search, Integer firstResult, Integer maxResults) {
+    return getDelegate().searchForOrganizationMembersStream(search, firstResult, maxResults);
+  }
+
+  @Override
+  public boolean hasMembership(UserModel user) {
+    return getDelegate().hasMembership(user);
+  }
+
+  @Override
+  public void grantMembership(UserModel user, boolean systemUser) {
+    cacheSession.registerUserInvalidation(realm, user.getId());
+    getDelegate().grantMembership(user, systemUser);
+  }
+
+  @Override
+  public void revokeMembership(UserModel user) {
+    cacheSession.registerUserInvalidation(realm, user.getId());
+    getDelegate().revokeMembership(user);
+  }
+
+  @Override
+  public Long getInvitationsCount() {
+    return getDelegate().getInvitationsCount();
+  }
+
+  @Override
+  public Stream<InvitationModel> getInvitationsStream() {
+    return getDelegate().getInvitationsStream();
+  }
+
+  @Override
+  public KeysetPage<InvitationModel> searchForInvitationsPage(
+      String search, PageCursor after, int maxResults) {
+    return getDelegate().searchForInvitationsPage(search, after, maxResults);
+  }
+
+  @Override
+  public Stream<InvitationModel> getInvitationsByEmail(String email) {
+    return getDelegate().getInvitationsByEmail(email);
+  }
+
+  @Override
+  public InvitationModel getInvitation(String id) {
+    return getDelegate().getInvitation(id);
+  }
+
+  @Override
+  public void revokeInvitation(String id) {
+    getDelegate().revokeInvitation(id);
+  }
+
+  @Override
+  public void revokeInvitations(String email) {
+    getDelegate().revokeInvitations(email);
+  }
+
+  @Override
+  public InvitationModel addInvitation(String email, UserModel inviter) {
+    return getDelegate().addInvitation(email, inviter);
+  }
+
+  @Override
+  public Stream<OrganizationRoleModel> getRolesStream() {
+    return getDelegate().getRolesStream().map(this::wrap);
+  }
+
+  @Override
+  public Stream<OrganizationRoleModel> getRolesByUserStream(UserModel user) {
+    return getDelegate().getRolesByUserStream(user).map(this::wrap);
+  }
+
+  @Override
+  public OrganizationRoleModel getRoleByName(String name) {
+    if (!isUpdated() && !cached.getRoleNames().contains(name)) return null;
+    return wrap(getDelegate().getRoleByName(name));
+  }
+
+  @Override
+  public OrganizationMemberModel getMembershipDetails(UserModel user) {
+    return getDelegate().getMembershipDetails(user);
+  }
+
+  @Override
+  public void removeRole(String name) {
+    getDelegateForUpdate().removeRole(name);
+  }
+
+  @Override
+  public OrganizationRoleModel addRole(String name) {
+    return wrap(getDelegateForUpdate().addRole(name));
+  }
+
+  @Override
+  public Stream<IdentityProviderModel> getIdentityProvidersStream() {
+    return getDelegate().getIdentityProvidersStream();
+  }
+
+  protected OrganizationRoleModel wrap(OrganizationRoleModel role) {
+    if (role == null) return null;
+    return new OrganizationRoleAdapter(cacheSession, realm, id, role);
+  }
+
+  @Override
+  public boolean equals(Object o) {
+    if (this == o) return true;
+    if (!(o instanceof OrganizationModel)) return false;
+    OrganizationModel that = (OrganizationModel) o;
+    return that.getId().equals(getId());
+  }
+
+  @Override
+  public int hashCode() {
+    return getId().hashCode();
+  }
+}
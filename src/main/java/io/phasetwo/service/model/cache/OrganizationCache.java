@@ -0,0 +1,283 @@
+package io.phasetwo.service.model.cache;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.collect.ImmutableList;
+import io.phasetwo.service.model.DomainRoutes;
+import io.phasetwo.service.model.UserOrganizationRoles;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+import lombok.extern.jbosslog.JBossLog;
+
+/**
+ * Node-local store of {@link CachedOrganization} snapshots, shared by all sessions created from the
+ * same {@link CachedOrganizationProviderFactory}. A revision counter guards against a load that
+ * started before an invalidation putting a stale snapshot back into the cache.
+ *
+ * <p>Domain routes are loaded off the login path: a realm without a current table is loaded in the
+ * background by a single loader per realm, and callers fall back to a point query meanwhile.
+ */
+@JBossLog
+public class OrganizationCache {
+
+  /**
+   * Routing tables are kept per realm, so they are bounded by a number of realms rather than by
+   * {@code maxSize}.
+   */
+  public static final long DEFAULT_DOMAIN_ROUTES_MAX_SIZE = 100L;
+
+  private final Cache<String, CachedOrganization> organizations;
+  private final Cache<String, String> organizationIdsByName;
+  private final Cache<String, List<UserOrganizationRoles>> userOrganizationRoles;
+  private final Cache<String, DomainRoutes> domainRoutes;
+  private final Set<String> domainRoutesLoading = ConcurrentHashMap.newKeySet();
+  private final Map<String, Long> invalidations = new ConcurrentHashMap<>();
+  private long revision = 0;
+  private Executor domainRoutesExecutor;
+  private Function<String, DomainRoutes> domainRoutesLoader;
+
+  public OrganizationCache(long maxSize, long expirationInSecs) {
+    this(maxSize, expirationInSecs, DEFAULT_DOMAIN_ROUTES_MAX_SIZE);
+  }
+
+  /**
+   * @param domainRoutesMaxSize maximum number of realms to keep a routing table for
+   */
+  public OrganizationCache(long maxSize, long expirationInSecs, long domainRoutesMaxSize) {
+    this.organizations =
+        CacheBuilder.newBuilder()
+            .maximumSize(maxSize)
+            .expireAfterWrite(expirationInSecs, TimeUnit.SECONDS)
+            .build();
+    this.organizationIdsByName =
+        CacheBuilder.newBuilder()
+            .maximumSize(maxSize)
+            .expireAfterWrite(expirationInSecs, TimeUnit.SECONDS)
+            .build();
+    this.userOrganizationRoles =
+        CacheBuilder.newBuilder()
+            .maximumSize(maxSize)
+            .expireAfterWrite(expirationInSecs, TimeUnit.SECONDS)
+            .build();
+    this.domainRoutes =
+        CacheBuilder.newBuilder()
+            .maximumSize(domainRoutesMaxSize)
+            .expireAfterWrite(expirationInSecs, TimeUnit.SECONDS)
+            .build();
+  }
+
+  public CachedOrganization get(String id) {
+    return organizations.getIfPresent(id);
+  }
+
+  public String getIdByName(String realmId, String name) {
+    return organizationIdsByName.getIfPresent(nameKey(realmId, name));
+  }
+
+  public List<UserOrganizationRoles> getUserOrganizationRoles(String realmId, String userId) {
+    return userOrganizationRoles.getIfPresent(userKey(realmId, userId));
+  }
+
+  /** Current routing table of the realm, or {@code null} while there is none. */
+  public DomainRoutes getDomainRoutes(String realmId) {
+    return domainRoutes.getIfPresent(realmId);
+  }
+
+  /**
+   * Sets how routing tables are loaded. The loader returns {@code null} for a realm that no longer
+   * exists.
+   */
+  public void setDomainRoutesLoader(Executor executor, Function<String, DomainRoutes> loader) {
+    this.domainRoutesExecutor = executor;
+    this.domainRoutesLoader = loader;
+  }
+
+  /**
+   * Loads the routing table of the realm in the background, unless a load is already running. A
+   * load that an invalidation overtakes is run again.
+   */
+  public void loadDomainRoutes(String realmId) {
+    if (domainRoutesLoader == null || !domainRoutesLoading.add(realmId)) return;
+    try {
+      domainRoutesExecutor.execute(
+          () -> {
+            try {
+              long startupRevision;
+              DomainRoutes routes;
+              do {
+                startupRevision = getCurrentRevision();
+                routes = domainRoutesLoader.apply(realmId);
+              } while (routes != null
+                  && !addDomainRoutesRevisioned(realmId, routes, startupRevision));
+            } catch (RuntimeException e) {
+              log.warnf(e, "Failed to load domain routes for realm %s", realmId);
+            } finally {
+              domainRoutesLoading.remove(realmId);
+            }
+          });
+    } catch (RuntimeException e) {
+      domainRoutesLoading.remove(realmId);
+      throw e;
+    }
+  }
+
+  /** Revision to pass to {@link #addRevisioned} for a snapshot that is about to be loaded. */
+  public synchronized long getCurrentRevision() {
+    return revision;
+  }
+
+  /**
+   * Adds the snapshot unless the organization (or its realm) was invalidated after {@code
+   * startupRevision} was read.
+   */
+  public synchronized boolean addRevisioned(CachedOrganization org, long startupRevision) {
+    if (isInvalidatedAfter(org.getId(), startupRevision)
+        || isInvalidatedAfter(realmKey(org.getRealmId()), startupRevision)) {
+      log.debugf("Skipping stale cache load of organization %s", org.getId());
+      return false;
+    }
+    organizations.put(org.getId(), org);
+    organizationIdsByName.put(nameKey(org.getRealmId(), org.getName()), org.getId());
+    return true;
+  }
+
+  /**
+   * Adds the user's memberships unless the user, the realm or one of the organizations was
+   * invalidated after {@code startupRevision} was read.
+   */
+  public synchronized boolean addUserOrganizationRolesRevisioned(
+      String realmId, String userId, List<UserOrganizationRoles> roles, long startupRevision) {
+    String key = userKey(realmId, userId);
+    if (isInvalidatedAfter(key, startupRevision)
+        || isInvalidatedAfter(realmKey(realmId), startupRevision)
+        || roles.stream()
+            .anyMatch(r -> isInvalidatedAfter(r.getOrganizationId(), startupRevision))) {
+      log.debugf("Skipping stale cache load of memberships for user %s", userId);
+      return false;
+    }
+    userOrganizationRoles.put(key, ImmutableList.copyOf(roles));
+    return true;
+  }
+
+  /**
+   * Replaces the routing table of the realm unless its routes (or the realm) were invalidated after
+   * {@code startupRevision} was read.
+   */
+  public synchronized boolean addDomainRoutesRevisioned(
+      String realmId, DomainRoutes routes, long startupRevision) {
+    if (isInvalidatedAfter(routesKey(realmId), startupRevision)
+        || isInvalidatedAfter(realmKey(realmId), startupRevision)) {
+      log.debugf("Skipping stale cache load of domain routes for realm %s", realmId);
+      return false;
+    }
+    domainRoutes.put(realmId, routes);
+    return true;
+  }
+
+  private boolean isInvalidatedAfter(String key, long startupRevision) {
+    Long invalidated = invalidations.get(key);
+    return invalidated != null && invalidated > startupRevision;
+  }
+
+  /**
+   * Invalidates the given organizations, all organizations of the given realms, and the cached
+   * memberships of the given users. Users are identified by keys from {@link #userKey}.
+   */
+  public void invalidate(
+      Collection<String> ids, Collection<String> realmIds, Collection<String> userKeys) {
+    invalidate(ids, realmIds, userKeys, null);
+  }
+
+  /**
+   * Same as {@link #invalidate(Collection, Collection, Collection)}, and also drops the domain
+   * routes of the realms in {@code routeRealmIds}. Tables that were in use are loaded again in the
+   * background.
+   */
+  public synchronized void invalidate(
+      Collection<String> ids,
+      Collection<String> realmIds,
+      Collection<String> userKeys,
+      Collection<String> routeRealmIds) {
+    revision++;
+    if (ids != null && !ids.isEmpty()) {
+      for (String id : ids) {
+        log.tracef("Invalidating organization %s", id);
+        invalidations.put(id, revision);
+        organizations.invalidate(id);
+      }
+      // memberships carry the organization and role names
+      userOrganizationRoles
+          .asMap()
+          .values()
+          .removeIf(l -> l.stream().anyMatch(r -> ids.contains(r.getOrganizationId())));
+    }
+    if (userKeys != null) {
+      for (String key : userKeys) {
+        log.tracef("Invalidating memberships of user %s", key);
+        invalidations.put(key, revision);
+        userOrganizationRoles.invalidate(key);
+      }
+    }
+    if (routeRealmIds != null) {
+      for (String realmId : routeRealmIds) {
+        log.tracef("Invalidating domain routes of realm %s", realmId);
+        invalidations.put(routesKey(realmId), revision);
+        if (domainRoutes.asMap().remove(realmId) != null) loadDomainRoutes(realmId);
+      }
+    }
+    if (realmIds != null && !realmIds.isEmpty()) {
+      for (String realmId : realmIds) {
+        log.tracef("Invalidating organizations of realm %s", realmId);
+        invalidations.put(realmKey(realmId), revision);
+        domainRoutes.invalidate(realmId);
+      }
+      organizations.asMap().values().removeIf(o -> realmIds.contains(o.getRealmId()));
+      organizationIdsByName
+          .asMap()
+          .keySet()
+          .removeIf(k -> realmIds.contains(k.substring(0, k.indexOf('/'))));
+      userOrganizationRoles
+          .asMap()
+          .keySet()
+          .removeIf(k -> realmIds.contains(k.substring(0, k.indexOf('/'))));
+    }
+    // markers only need to outlive the loads that were in flight when they were set
+    pruneInvalidations();
+  }
+
+  public void clear() {
+    organizations.invalidateAll();
+    organizationIdsByName.invalidateAll();
+    userOrganizationRoles.invalidateAll();
+    domainRoutes.invalidateAll();
+  }
+
+  private void pruneInvalidations() {
+    if (invalidations.size() > 10_000) {
+      long keepAfter = revision - 1_000;
+      invalidations.values().removeIf(r -> r < keepAfter);
+    }
+  }
+
+  private static String nameKey(String realmId, String name) {
+    return realmId + "/" + name;
+  }
+
+  public static String userKey(String realmId, String userId) {
+    return realmId + "/user:" + userId;
+  }
+
+  private static String routesKey(String realmId) {
+    return "routes:" + realmId;
+  }
+
+  private static String realmKey(String realmId) {
+    return "realm:" + realmId;
+  }
+}
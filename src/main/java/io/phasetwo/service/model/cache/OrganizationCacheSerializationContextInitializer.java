@@ -0,0 +1,75 @@
+package io.phasetwo.service.model.cache;
+
+import com.google.auto.service.AutoService;
+import java.io.IOException;
+import java.util.HashSet;
+import org.infinispan.protostream.FileDescriptorSource;
+import org.infinispan.protostream.MessageMarshaller;
+import org.infinispan.protostream.SerializationContext;
+import org.infinispan.protostream.SerializationContextInitializer;
+
+/**
+ * ProtoStream schema of the organization cache cluster messages. Keycloak marshals cluster events
+ * with ProtoStream, which loads this initializer as a service.
+ */
+@AutoService(SerializationContextInitializer.class)
+public class OrganizationCacheSerializationContextInitializer
+    implements SerializationContextInitializer {
+
+  static final String PROTO_FILE_NAME = "phasetwo-orgs-cache.proto";
+  static final String PACKAGE = "phasetwo.orgs.cache";
+
+  private static final String PROTO_FILE =
+      "syntax = \"proto3\";\n"
+          + "package "
+          + PACKAGE
+          + ";\n"
+          + "message OrganizationInvalidationEvent {\n"
+          + "  repeated string organizationIds = 1;\n"
+          + "  repeated string realmIds = 2;\n"
+          + "  repeated string userKeys = 3;\n"
+          + "  repeated string routeRealmIds = 4;\n"
+          + "}\n";
+
+  @Override
+  public void registerSchema(SerializationContext ctx) {
+    ctx.registerProtoFiles(FileDescriptorSource.fromString(PROTO_FILE_NAME, PROTO_FILE));
+  }
+
+  @Override
+  public void registerMarshallers(SerializationContext ctx) {
+    ctx.registerMarshaller(new OrganizationInvalidationEventMarshaller());
+  }
+
+  static class OrganizationInvalidationEventMarshaller
+      implements MessageMarshaller<OrganizationInvalidationEvent> {
+
+    @Override
+    public Class<? extends OrganizationInvalidationEvent> getJavaClass() {
+      return OrganizationInvalidationEvent.class;
+    }
+
+    @Override
+    public String getTypeName() {
+      return PACKAGE + ".OrganizationInvalidationEvent";
+    }
+
+    @Override
+    public OrganizationInvalidationEvent readFrom(ProtoStreamReader reader) throws IOException {
+      return new OrganizationInvalidationEvent(
+          reader.readCollection("organizationIds", new HashSet<>(), String.class),
+          reader.readCollection("realmIds", new HashSet<>(), String.class),
+          reader.readCollection("userKeys", new HashSet<>(), String.class),
+          reader.readCollection("routeRealmIds", new HashSet<>(), String.class));
+    }
+
+    @Override
+    public void writeTo(ProtoStreamWriter writer, OrganizationInvalidationEvent event)
+        throws IOException {
+      writer.writeCollection("organizationIds", event.getOrganizationIds(), String.class);
+      writer.writeCollection("realmIds", event.getRealmIds(), String.class);
+      writer.writeCollection("userKeys", event.getUserKeys(), String.class);
+      writer.writeCollection("routeRealmIds", event.getRouteRealmIds(), String.class);
+    }
+  }
+}
@@ -0,0 +1,52 @@
+package io.phasetwo.service.model.cache;
+
+import java.util.HashSet;
+import java.util.Set;
+import org.keycloak.cluster.ClusterEvent;
+
+/**
+ * Cluster message telling other nodes to drop cached organizations. Marshalled with the schema of
+ * {@link OrganizationCacheSerializationContextInitializer}.
+ */
+public class OrganizationInvalidationEvent implements ClusterEvent {
+
+  private final Set<String> organizationIds;
+  private final Set<String> realmIds;
+  private final Set<String> userKeys;
+  private final Set<String> routeRealmIds;
+
+  public OrganizationInvalidationEvent(
+      Set<String> organizationIds,
+      Set<String> realmIds,
+      Set<String> userKeys,
+      Set<String> routeRealmIds) {
+    this.organizationIds = new HashSet<>(organizationIds);
+    this.realmIds = new HashSet<>(realmIds);
+    this.userKeys = new HashSet<>(userKeys);
+    this.routeRealmIds = new HashSet<>(routeRealmIds);
+  }
+
+  public Set<String> getOrganizationIds() {
+    return organizationIds;
+  }
+
+  public Set<String> getRealmIds() {
+    return realmIds;
+  }
+
+  public Set<String> getUserKeys() {
+    return userKeys;
+  }
+
+  public Set<String> getRouteRealmIds() {
+    return routeRealmIds;
+  }
+
+  @Override
+  public String toString() {
+    return String.format(
+        "OrganizationInvalidationEvent [ organizationIds=%s, realmIds=%s, userKeys=%s,"
+            + " routeRealmIds=%s ]",
+        organizationIds, realmIds, userKeys, routeRealmIds);
+  }
+}
@@ -0,0 +1,77 @@
+package io.phasetwo.service.model.cache;
+
+import io.phasetwo.service.model.OrganizationRoleModel;
+import java.util.stream.Stream;
+import org.keycloak.models.RealmModel;
+import org.keycloak.models.UserModel;
+
+/**
+ * Organization role that registers invalidations with the {@link CachedOrganizationProvider} when
+ * the role is renamed or granted to or revoked from a user.
+ */
+public class OrganizationRoleAdapter implements OrganizationRoleModel {
+
+  protected final CachedOrganizationProvider cacheSession;
+  protected final RealmModel realm;
+  protected final String organizationId;
+  protected final OrganizationRoleModel delegate;
+
+  public OrganizationRoleAdapter(
+      CachedOrganizationProvider cacheSession,
+      RealmModel realm,
+      String organizationId,
+      OrganizationRoleModel delegate) {
+    this.cacheSession = cacheSession;
+    this.realm = realm;
+    this.organizationId = organizationId;
+    this.delegate = delegate;
+  }
+
+  @Override
+  public String getId() {
+    return delegate.getId();
+  }
+
+  @Override
+  public String getName() {
+    return delegate.getName();
+  }
+
+  @Override
+  public void setName(String name) {
+    cacheSession.registerInvalidation(organizationId);
+    delegate.setName(name);
+  }
+
+  @Override
+  public String getDescription() {
+    return delegate.getDescription();
+  }
+
+  @Override
+  public void setDescription(String description) {
+    delegate.setDescription(description);
+  }
+
+  @Override
+  public Stream<UserModel> getUserMappingsStream(boolean excludeAdminAccounts) {
+    return delegate.getUserMappingsStream(excludeAdminAccounts);
+  }
+
+  @Override
+  public void grantRole(UserModel user) {
+    cacheSession.registerUserInvalidation(realm, user.getId());
+    delegate.grantRole(user);
+  }
+
+  @Override
+  public void revokeRole(UserModel user) {
+    cacheSession.registerUserInvalidation(realm, user.getId());
+    delegate.revokeRole(user);
+  }
+
+  @Override
+  public boolean hasRole(UserModel user) {
+    return delegate.hasRole(user);
+  }
+}
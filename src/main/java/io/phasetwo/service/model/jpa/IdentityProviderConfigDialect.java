@@ -0,0 +1,71 @@
+package io.phasetwo.service.model.jpa;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.TypedQuery;
+import lombok.extern.jbosslog.JBossLog;
+import org.hibernate.Session;
+import org.keycloak.models.jpa.entities.IdentityProviderEntity;
+
+/**
+ * Database specific queries for looking up identity providers by a config value. The value column
+ * of {@code IDENTITY_PROVIDER_CONFIG} is a LOB on some databases, which can't be compared with
+ * {@code =}. Resolved once per server by {@link JpaOrganizationProviderFactory}, so lookups don't
+ * have to read the connection metadata. The queries are fixed JPQL strings, so Hibernate reuses
+ * their plans.
+ */
+@JBossLog
+public enum IdentityProviderConfigDialect {
+  POSTGRESQL("VALUE(c) = :configValue", "VALUE(c) LIKE :configValue"),
+  COCKROACHDB("VALUE(c) = :configValue", "VALUE(c) LIKE :configValue"),
+  MYSQL("VALUE(c) = :configValue", "VALUE(c) LIKE :configValue"),
+  // NCLOB: LIKE works on LOBs, equality has to go through DBMS_LOB
+  ORACLE("function('DBMS_LOB.COMPARE', VALUE(c), :configValue) = 0", "VALUE(c) LIKE :configValue"),
+  // NVARCHAR(MAX) or NTEXT depending on the schema version: NTEXT can't be compared with =
+  MSSQL("cast(VALUE(c) as String) = :configValue", "VALUE(c) LIKE :configValue"),
+  DEFAULT("VALUE(c) = :configValue", "VALUE(c) LIKE :configValue");
+
+  private static final String QUERY =
+      "SELECT i FROM IdentityProviderEntity i JOIN i.config c WHERE i.realmId = :realmId AND"
+          + " KEY(c) = :configKey AND %s ORDER BY i.alias";
+
+  private final String exactQuery;
+  private final String likeQuery;
+
+  IdentityProviderConfigDialect(String exactPredicate, String likePredicate) {
+    this.exactQuery = String.format(QUERY, exactPredicate);
+    this.likeQuery = String.format(QUERY, likePredicate);
+  }
+
+  /**
+   * Identity providers of the realm with the config value, or containing it if not {@code exact}.
+   */
+  public TypedQuery<IdentityProviderEntity> createQuery(
+      EntityManager em, String realmId, String configKey, String configValue, boolean exact) {
+    return em.createQuery(exact ? exactQuery : likeQuery, IdentityProviderEntity.class)
+        .setParameter("realmId", realmId)
+        .setParameter("configKey", configKey)
+        .setParameter("configValue", exact ? configValue : "%" + configValue + "%");
+  }
+
+  /** Dialect for a JDBC {@code DatabaseMetaData#getDatabaseProductName}. */
+  public static IdentityProviderConfigDialect forProductName(String productName) {
+    if (productName == null) return DEFAULT;
+    String name = productName.toLowerCase();
+    if (name.contains("cockroach")) return COCKROACHDB;
+    if (name.contains("postgres")) return POSTGRESQL;
+    if (name.contains("mysql") || name.contains("mariadb")) return MYSQL;
+    if (name.contains("oracle")) return ORACLE;
+    if (name.contains("microsoft sql server")) return MSSQL;
+    return DEFAULT;
+  }
+
+  /** Reads the product name from the connection of the entity manager. */
+  public static IdentityProviderConfigDialect detect(EntityManager em) {
+    String productName =
+        em.unwrap(Session.class)
+            .doReturningWork(connection -> connection.getMetaData().getDatabaseProductName());
+    IdentityProviderConfigDialect dialect = forProductName(productName);
+    log.debugf("Using %s identity provider config queries for %s", dialect, productName);
+    return dialect;
+  }
+}
@@ -1,14 +1,23 @@
 package io.phasetwo.service.model.jpa;
 
+import static io.phasetwo.service.Orgs.ORG_VALIDATION_PENDING_CONFIG_KEY;
 import static org.keycloak.models.jpa.PaginationUtils.paginateQuery;
 import static org.keycloak.utils.StreamsUtil.closing;
 
 import com.google.common.base.Strings;
 import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.Iterables;
 import com.google.common.net.InternetDomainName;
+import io.phasetwo.service.model.DomainRoutes;
 import io.phasetwo.service.model.InvitationModel;
+import io.phasetwo.service.model.KeysetPage;
+import io.phasetwo.service.model.OrganizationMemberSummary;
 import io.phasetwo.service.model.OrganizationModel;
 import io.phasetwo.service.model.OrganizationProvider;
+import io.phasetwo.service.model.OrganizationSearchMode;
+import io.phasetwo.service.model.PageCursor;
+import io.phasetwo.service.model.ResolvedOrganization;
+import io.phasetwo.service.model.UserOrganizationRoles;
 import io.phasetwo.service.model.jpa.entity.DomainEntity;
 import io.phasetwo.service.model.jpa.entity.ExtOrganizationEntity;
 import io.phasetwo.service.model.jpa.entity.InvitationEntity;
@@ -25,24 +34,51 @@ import jakarta.persistence.criteria.Join;
 import jakarta.persistence.criteria.JoinType;
 import jakarta.persistence.criteria.Predicate;
 import jakarta.persistence.criteria.Root;
+import jakarta.persistence.criteria.Subquery;
 import java.util.*;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
+import org.hibernate.Session;
+import org.hibernate.query.NativeQuery;
+import org.keycloak.common.util.MultivaluedHashMap;
 import org.keycloak.connections.jpa.JpaConnectionProvider;
 import org.keycloak.models.IdentityProviderModel;
 import org.keycloak.models.KeycloakSession;
 import org.keycloak.models.RealmModel;
 import org.keycloak.models.UserModel;
+import org.keycloak.models.jpa.entities.UserEntity;
 import org.keycloak.models.utils.KeycloakModelUtils;
 
 public class JpaOrganizationProvider implements OrganizationProvider {
 
+  // pg_trgm: % is the similarity operator. The GIN trigram indexes serve it as well as the LIKE
+  private static final String FUZZY_SEARCH_FROM =
+      " FROM ORGANIZATION o WHERE o.REALM_ID = :realmId AND (lower(o.NAME) % :term OR"
+          + " lower(o.DISPLAY_NAME) % :term OR lower(o.NAME) LIKE :search OR lower(o.DISPLAY_NAME)"
+          + " LIKE :search)";
+  private static final String FUZZY_SEARCH_MEMBER =
+      " AND EXISTS (SELECT 1 FROM ORGANIZATION_MEMBER m WHERE m.ORGANIZATION_ID = o.ID AND"
+          + " m.USER_ID = :userId)";
+  private static final String FUZZY_SEARCH_ORDER =
+      " ORDER BY greatest(similarity(lower(o.NAME), :term),"
+          + " similarity(lower(coalesce(o.DISPLAY_NAME, '')), :term)) DESC, o.NAME, o.ID";
+
+  static final int UNOWNED_DOMAINS_MAX_SIZE = 32;
+
   protected final KeycloakSession session;
   protected final EntityManager em;
-
-  public JpaOrganizationProvider(KeycloakSession session, EntityManager em) {
+  protected final IdentityProviderConfigDialect dialect;
+  protected final boolean trigramSearch;
+
+  public JpaOrganizationProvider(
+      KeycloakSession session,
+      EntityManager em,
+      IdentityProviderConfigDialect dialect,
+      boolean trigramSearch) {
     this.session = session;
     this.em = em;
+    this.dialect = dialect;
+    this.trigramSearch = trigramSearch;
   }
 
   @Override
@@ -142,53 +178,342 @@ public class JpaOrganizationProvider implements OrganizationProvider {
         .map(e -> new OrganizationAdapter(session, realm, em, e.getOrganization()));
   }
 
+  @Override
+  public Stream<UserOrganizationRoles> getUserOrganizationRolesStream(
+      RealmModel realm, UserModel user) {
+    TypedQuery<Object[]> query = em.createNamedQuery("getUserOrganizationRoles", Object[].class);
+    query.setParameter("realmId", realm.getId());
+    query.setParameter("userId", user.getId());
+    Map<String, Object[]> orgs = new LinkedHashMap<>();
+    Map<String, List<String>> roles = new HashMap<>();
+    query
+        .getResultStream()
+        .forEach(
+            row -> {
+              String orgId = (String) row[0];
+              orgs.putIfAbsent(orgId, row);
+              List<String> orgRoles = roles.computeIfAbsent(orgId, k -> new ArrayList<>());
+              if (row[4] != null) orgRoles.add((String) row[4]);
+            });
+    return orgs.values().stream()
+        .map(
+            row ->
+                new UserOrganizationRoles(
+                    (String) row[0],
+                    (String) row[1],
+                    (String) row[2],
+                    (String) row[3],
+                    roles.get((String) row[0])));
+  }
+
+  @Override
+  public Stream<OrganizationMemberSummary> searchForMemberSummariesStream(
+      RealmModel realm,
+      String organizationId,
+      String search,
+      Integer firstResult,
+      Integer maxResults,
+      boolean excludeAdminAccounts) {
+    TypedQuery<Object[]> query =
+        memberSummariesQuery(realm, organizationId, search, excludeAdminAccounts, null);
+    return closing(paginateQuery(query, firstResult, maxResults).getResultStream())
+        .map(JpaOrganizationProvider::toMemberSummary);
+  }
+
+  @Override
+  public KeysetPage<OrganizationMemberSummary> searchForMemberSummariesPage(
+      RealmModel realm,
+      String organizationId,
+      String search,
+      PageCursor after,
+      int maxResults,
+      boolean excludeAdminAccounts) {
+    List<Object[]> rows =
+        memberSummariesQuery(realm, organizationId, search, excludeAdminAccounts, after)
+            .setMaxResults(maxResults + 1)
+            .getResultList();
+    return KeysetPage.of(rows, maxResults, row -> new PageCursor((Date) row[8], (String) row[9]))
+        .map(JpaOrganizationProvider::toMemberSummary);
+  }
+
+  /**
+   * Brief user fields of the members, followed by the creation time and id of the membership,
+   * ordered by the latter two and starting after the cursor if there is one.
+   */
+  private TypedQuery<Object[]> memberSummariesQuery(
+      RealmModel realm,
+      String organizationId,
+      String search,
+      boolean excludeAdminAccounts,
+      PageCursor after) {
+    CriteriaBuilder cb = em.getCriteriaBuilder();
+    CriteriaQuery<Object[]> criteriaQuery = cb.createQuery(Object[].class);
+    Root<OrganizationMemberEntity> member = criteriaQuery.from(OrganizationMemberEntity.class);
+    Root<UserEntity> user = criteriaQuery.from(UserEntity.class);
+
+    List<Predicate> predicates = new ArrayList<>();
+    predicates.add(cb.equal(member.get("organization").get("id"), organizationId));
+    predicates.add(cb.equal(member.get("organization").get("realmId"), realm.getId()));
+    predicates.add(cb.equal(user.get("id"), member.get("userId")));
+    predicates.add(cb.isNull(user.get("serviceAccountClientLink")));
+    if (search != null && !search.isEmpty()) {
+      List<Predicate> searchTermsPredicates = new ArrayList<>();
+      for (String stringToSearch : search.trim().split(",")) {
+        searchTermsPredicates.add(
+            cb.or(OrganizationAdapter.getSearchOptionPredicateArray(stringToSearch, cb, user)));
+      }
+      predicates.add(cb.or(searchTermsPredicates.toArray(Predicate[]::new)));
+    }
+    if (excludeAdminAccounts) {
+      predicates.add(cb.isFalse(member.get("systemUser")));
+    }
+    if (after != null) {
+      Date createdAt = after.getKeyAsDate();
+      predicates.add(
+          cb.or(
+              cb.greaterThan(member.get("createdAt"), createdAt),
+              cb.and(
+                  cb.equal(member.get("createdAt"), createdAt),
+                  cb.greaterThan(member.get("id"), after.getId()))));
+    }
+
+    criteriaQuery
+        .multiselect(
+            user.get("id"),
+            user.get("username"),
+            user.get("email"),
+            user.get("emailVerified"),
+            user.get("firstName"),
+            user.get("lastName"),
+            user.get("enabled"),
+            user.get("createdTimestamp"),
+            member.get("createdAt"),
+            member.get("id"))
+        .where(predicates.toArray(Predicate[]::new))
+        .orderBy(cb.asc(member.get("createdAt")), cb.asc(member.get("id")));
+
+    return em.createQuery(criteriaQuery);
+  }
+
+  private static OrganizationMemberSummary toMemberSummary(Object[] row) {
+    return new OrganizationMemberSummary(
+        (String) row[0],
+        (String) row[1],
+        (String) row[2],
+        Boolean.TRUE.equals(row[3]),
+        (String) row[4],
+        (String) row[5],
+        Boolean.TRUE.equals(row[6]),
+        (Long) row[7]);
+  }
+
+  @Override
+  public Stream<ResolvedOrganization> resolveOrganizationsStream(
+      RealmModel realm, Collection<String> organizationIds, UserModel user) {
+    if (organizationIds.isEmpty()) return Stream.empty();
+    List<ResolvedOrganization> resolved = new ArrayList<>();
+    // keep the IN list within the limits of all supported databases
+    for (List<String> ids : Iterables.partition(new HashSet<>(organizationIds), 1000)) {
+      em.createNamedQuery("resolveOrganizationsWithMembership", Object[].class)
+          .setParameter("realmId", realm.getId())
+          .setParameter("userId", user.getId())
+          .setParameter("ids", ids)
+          .getResultStream()
+          .forEach(
+              row ->
+                  resolved.add(
+                      new ResolvedOrganization(
+                          (String) row[0], (String) row[1], Boolean.TRUE.equals(row[2]))));
+    }
+    return resolved.stream();
+  }
+
+  @Override
+  public Map<String, Map<String, List<String>>> getOrganizationsAttributes(
+      RealmModel realm, Collection<String> organizationIds, Collection<String> attributeNames) {
+    Map<String, MultivaluedHashMap<String, String>> attributes = new HashMap<>();
+    if (organizationIds == null
+        || organizationIds.isEmpty()
+        || (attributeNames != null && attributeNames.isEmpty())) return new HashMap<>();
+    // keep the IN list within the limits of all supported databases
+    for (List<String> ids : Iterables.partition(new HashSet<>(organizationIds), 1000)) {
+      TypedQuery<Object[]> query =
+          attributeNames == null
+              ? em.createNamedQuery("getOrganizationAttributesByOrganizationIds", Object[].class)
+                  .setParameter("realmId", realm.getId())
+                  .setParameter("organizationIds", ids)
+              : organizationAttributesQuery(realm, ids, attributeNames);
+      query
+          .getResultStream()
+          .forEach(
+              row ->
+                  attributes
+                      .computeIfAbsent((String) row[0], k -> new MultivaluedHashMap<>())
+                      .add((String) row[1], (String) row[2]));
+    }
+    return new HashMap<>(attributes);
+  }
+
+  private TypedQuery<Object[]> organizationAttributesQuery(
+      RealmModel realm, List<String> ids, Collection<String> attributeNames) {
+    CriteriaBuilder builder = em.getCriteriaBuilder();
+    CriteriaQuery<Object[]> queryBuilder = builder.createQuery(Object[].class);
+    Root<OrganizationAttributeEntity> root = queryBuilder.from(OrganizationAttributeEntity.class);
+    Join<OrganizationAttributeEntity, ExtOrganizationEntity> org = root.join("organization");
+    queryBuilder.multiselect(org.get("id"), root.get("name"), root.get("value"));
+
+    List<String> names = new ArrayList<>();
+    List<Predicate> namePredicates = new ArrayList<>();
+    for (String name : attributeNames) {
+      if (name.endsWith("*")) {
+        String prefix = name.substring(0, name.length() - 1).replaceAll("([\\\\%_])", "\\\\$1");
+        namePredicates.add(builder.like(root.get("name"), prefix + "%", '\\'));
+      } else {
+        names.add(name);
+      }
+    }
+    if (!names.isEmpty()) {
+      namePredicates.add(root.get("name").in(names));
+    }
+
+    queryBuilder.where(
+        builder.equal(org.get("realmId"), realm.getId()),
+        org.get("id").in(ids),
+        builder.or(namePredicates.toArray(new Predicate[0])));
+    return em.createQuery(queryBuilder);
+  }
+
   @Override
   public Stream<OrganizationModel> searchForOrganizationStream(
       RealmModel realm,
       Map<String, String> attributes,
+      OrganizationSearchMode mode,
       Integer firstResult,
       Integer maxResults,
       Optional<UserModel> member) {
     if (attributes == null) {
       attributes = ImmutableMap.of();
     }
+    String fuzzyTerm = fuzzySearchTerm(attributes, null, mode);
+    if (fuzzyTerm != null) {
+      NativeQuery<ExtOrganizationEntity> fuzzy =
+          fuzzySearchQuery(
+              "SELECT o.*",
+              FUZZY_SEARCH_ORDER,
+              ExtOrganizationEntity.class,
+              realm,
+              fuzzyTerm,
+              member);
+      return closing(paginateQuery(fuzzy, firstResult, maxResults).getResultStream())
+          .map(e -> new OrganizationAdapter(session, realm, em, e));
+    }
+
+    TypedQuery<ExtOrganizationEntity> named = namedSearchQuery(realm, attributes, mode, member);
+    if (named != null) {
+      return closing(paginateQuery(named, firstResult, maxResults).getResultStream())
+          .map(e -> new OrganizationAdapter(session, realm, em, e));
+    }
+
+    TypedQuery<ExtOrganizationEntity> query = searchQuery(realm, attributes, mode, member, null);
+
+    return closing(paginateQuery(query, firstResult, maxResults).getResultStream())
+        .map(e -> new OrganizationAdapter(session, realm, em, e));
+  }
+
+  @Override
+  public KeysetPage<OrganizationModel> searchForOrganizationPage(
+      RealmModel realm,
+      Map<String, String> attributes,
+      OrganizationSearchMode mode,
+      PageCursor after,
+      int maxResults,
+      Optional<UserModel> member) {
+    if (attributes == null) {
+      attributes = ImmutableMap.of();
+    }
+    List<ExtOrganizationEntity> rows =
+        searchQuery(realm, attributes, mode, member, after)
+            .setMaxResults(maxResults + 1)
+            .getResultList();
+    return KeysetPage.of(rows, maxResults, e -> new PageCursor(e.getName(), e.getId()))
+        .map(e -> new OrganizationAdapter(session, realm, em, e));
+  }
+
+  /** Criteria search ordered by name and id, starting after the cursor if there is one. */
+  private TypedQuery<ExtOrganizationEntity> searchQuery(
+      RealmModel realm,
+      Map<String, String> attributes,
+      OrganizationSearchMode mode,
+      Optional<UserModel> member,
+      PageCursor after) {
     CriteriaBuilder builder = em.getCriteriaBuilder();
     CriteriaQuery<ExtOrganizationEntity> queryBuilder =
         builder.createQuery(ExtOrganizationEntity.class);
     Root<ExtOrganizationEntity> root = queryBuilder.from(ExtOrganizationEntity.class);
 
-    List<Predicate> predicates = attributePredicates(attributes, root);
+    List<Predicate> predicates = attributePredicates(attributes, mode, root, queryBuilder);
 
     predicates.add(builder.equal(root.get("realmId"), realm.getId()));
 
     member.ifPresent(u -> predicates.add(memberPredicate(u, root)));
 
-    queryBuilder.where(predicates.toArray(new Predicate[0])).orderBy(builder.asc(root.get("name")));
+    if (after != null) {
+      predicates.add(
+          builder.or(
+              builder.greaterThan(root.get("name"), after.getKey()),
+              builder.and(
+                  builder.equal(root.get("name"), after.getKey()),
+                  builder.greaterThan(root.get("id"), after.getId()))));
+    }
 
-    TypedQuery<ExtOrganizationEntity> query = em.createQuery(queryBuilder);
+    queryBuilder
+        .where(predicates.toArray(new Predicate[0]))
+        .orderBy(builder.asc(root.get("name")), builder.asc(root.get("id")));
 
-    return closing(paginateQuery(query, firstResult, maxResults).getResultStream())
-        .map(orgEntity -> getOrganizationById(realm, orgEntity.getId()))
-        .filter(Objects::nonNull);
+    return em.createQuery(queryBuilder);
   }
 
   @Override
   public Long getOrganizationsCount(
-      RealmModel realm, String search, Map<String, String> attributes) {
+      RealmModel realm,
+      String search,
+      Map<String, String> attributes,
+      OrganizationSearchMode mode) {
     if (attributes == null) {
       attributes = ImmutableMap.of();
     }
+    String fuzzyTerm = fuzzySearchTerm(attributes, search, mode);
+    if (fuzzyTerm != null) {
+      return fuzzySearchQuery("SELECT count(*)", "", Long.class, realm, fuzzyTerm, Optional.empty())
+          .getSingleResult();
+    }
+    if (attributes.values().stream().allMatch(Objects::isNull)) {
+      TypedQuery<Long> named;
+      if (search != null && !search.trim().isEmpty()) {
+        named = em.createNamedQuery("countOrganizationsByRealmIdAndName", Long.class);
+        named.setParameter("search", mode.pattern(search));
+      } else {
+        named = em.createNamedQuery("getOrganizationCount", Long.class);
+      }
+      return named.setParameter("realmId", realm.getId()).getSingleResult();
+    }
+    String name = nameOnlyFilter(attributes);
+    if (name != null && (search == null || search.trim().isEmpty())) {
+      return em.createNamedQuery("countSearchOrganizationsByRealmIdAndName", Long.class)
+          .setParameter("realmId", realm.getId())
+          .setParameter("search", mode.pattern(name))
+          .getSingleResult();
+    }
 
     CriteriaBuilder builder = em.getCriteriaBuilder();
     CriteriaQuery<Long> queryBuilder = builder.createQuery(Long.class);
     Root<ExtOrganizationEntity> root = queryBuilder.from(ExtOrganizationEntity.class);
 
-    List<Predicate> predicates = attributePredicates(attributes, root);
+    List<Predicate> predicates = attributePredicates(attributes, mode, root, queryBuilder);
     predicates.add(builder.equal(root.get("realmId"), realm.getId()));
 
     if (search != null && !search.trim().isEmpty()) {
-      String searchPattern = "%" + search.toLowerCase() + "%";
-      predicates.add(builder.like(builder.lower(root.get("name")), searchPattern));
+      predicates.add(builder.like(builder.lower(root.get("name")), mode.pattern(search)));
     }
 
     queryBuilder.select(builder.count(root)).where(predicates.toArray(new Predicate[0]));
@@ -202,6 +527,9 @@ public class JpaOrganizationProvider implements OrganizationProvider {
     ExtOrganizationEntity e = em.find(ExtOrganizationEntity.class, id);
     em.remove(e);
     session.getKeycloakSessionFactory().publish(orgRemovedEvent(realm, org));
+    em.createNamedQuery("removeOrganizationIdentityProvidersByOrganization")
+        .setParameter("organizationId", id)
+        .executeUpdate();
     em.flush();
     return true;
   }
@@ -227,6 +555,17 @@ public class JpaOrganizationProvider implements OrganizationProvider {
     return query.getResultStream().map(i -> new InvitationAdapter(session, realm, em, i));
   }
 
+  @Override
+  public Stream<InvitationModel> getOrganizationInvitationsStream(
+      RealmModel realm, String organizationId, String email) {
+    if (email == null) return Stream.empty();
+    TypedQuery<InvitationEntity> query =
+        em.createNamedQuery("getInvitationsByOrganizationIdAndEmail", InvitationEntity.class);
+    query.setParameter("organizationId", organizationId);
+    query.setParameter("email", email.toLowerCase());
+    return query.getResultStream().map(i -> new InvitationAdapter(session, realm, em, i));
+  }
+
   @Override
   public InvitationModel getInvitationById(RealmModel realm, String id) {
     TypedQuery<InvitationEntity> query =
@@ -248,7 +587,95 @@ public class JpaOrganizationProvider implements OrganizationProvider {
   public Stream<IdentityProviderModel> getIdentityProvidersStream(
       RealmModel realm, String configKey, String configValue, boolean exact) {
     return IdentityProviders.getIdentityProvidersStream(
-        session, em, realm, configKey, configValue, exact);
+        session, em, dialect, realm, configKey, configValue, exact);
+  }
+
+  /** Routes of the whole realm, for the cache layer to build its table from. */
+  @Override
+  public DomainRoutes getDomainRoutes(RealmModel realm) {
+    DomainRoutes.Builder routes = DomainRoutes.builder();
+    em.createNamedQuery("getDomainRoutesByRealm", Object[].class)
+        .setParameter("realmId", realm.getId())
+        .getResultStream()
+        .forEach(r -> routes.domain((String) r[0], (String) r[1], (Boolean) r[2]));
+    addIdentityProviderRoutes(
+        routes,
+        em.createNamedQuery("getIdentityProviderRoutesByRealm", Object[].class)
+            .setParameter("realmId", realm.getId()));
+    return routes.build();
+  }
+
+  /**
+   * Routes of the organizations owning the domain or one of its parent domains only, found by exact
+   * match on the indexed domain column. Domains that no organization owns are remembered for the
+   * session, up to {@link #UNOWNED_DOMAINS_MAX_SIZE}, so that discovery and the post-broker
+   * authenticators don't repeat the lookup. Writes to domains in the session drop them through
+   * {@link #invalidateDomainRoutes(KeycloakSession, RealmModel)}.
+   */
+  @Override
+  public DomainRoutes getDomainRoutes(RealmModel realm, String domain) {
+    if (domain == null) return DomainRoutes.EMPTY;
+    Set<String> unowned = getUnownedDomains(session, realm);
+    if (unowned.contains(domain)) return DomainRoutes.EMPTY;
+    DomainRoutes.Builder routes = DomainRoutes.builder();
+    Set<String> orgIds = new HashSet<>();
+    em.createNamedQuery("getDomainRoutesByRealmAndDomains", Object[].class)
+        .setParameter("realmId", realm.getId())
+        .setParameter("domains", DomainRoutes.withParents(domain))
+        .getResultStream()
+        .forEach(
+            r -> {
+              routes.domain((String) r[0], (String) r[1], (Boolean) r[2]);
+              orgIds.add((String) r[1]);
+            });
+    if (orgIds.isEmpty()) {
+      if (unowned.size() < UNOWNED_DOMAINS_MAX_SIZE) unowned.add(domain);
+      return routes.build();
+    }
+    addIdentityProviderRoutes(
+        routes,
+        em.createNamedQuery("getIdentityProviderRoutesByOrganizations", Object[].class)
+            .setParameter("realmId", realm.getId())
+            .setParameter("organizationIds", orgIds));
+    return routes.build();
+  }
+
+  @Override
+  public void invalidateDomainRoutes(RealmModel realm) {
+    invalidateDomainRoutes(session, realm);
+  }
+
+  static void invalidateDomainRoutes(KeycloakSession session, RealmModel realm) {
+    session.removeAttribute(unownedDomainsKey(realm));
+  }
+
+  @SuppressWarnings("unchecked")
+  private static Set<String> getUnownedDomains(KeycloakSession session, RealmModel realm) {
+    String key = unownedDomainsKey(realm);
+    Set<String> unowned = session.getAttribute(key, Set.class);
+    if (unowned == null) {
+      unowned = new HashSet<>();
+      session.setAttribute(key, unowned);
+    }
+    return unowned;
+  }
+
+  private static String unownedDomainsKey(RealmModel realm) {
+    return DomainRoutes.class.getName() + ".unowned." + realm.getId();
+  }
+
+  private void addIdentityProviderRoutes(DomainRoutes.Builder routes, TypedQuery<Object[]> query) {
+    query
+        .setParameter("configKey", ORG_VALIDATION_PENDING_CONFIG_KEY)
+        .getResultStream()
+        .forEach(
+            r ->
+                routes.identityProvider(
+                    (String) r[0],
+                    new DomainRoutes.IdentityProviderRoute(
+                        (String) r[1],
+                        Boolean.parseBoolean((String) r[3]),
+                        IdentityProviders.strListToSet((String) r[2]))));
   }
 
   @Override
@@ -338,12 +765,91 @@ public class JpaOrganizationProvider implements OrganizationProvider {
     };
   }
 
+  /**
+   * Named query for the fixed-shape searches: by realm, optionally with a name filter and a member.
+   * Returns {@code null} if there are other attribute filters, which need a criteria query.
+   */
+  private TypedQuery<ExtOrganizationEntity> namedSearchQuery(
+      RealmModel realm,
+      Map<String, String> attributes,
+      OrganizationSearchMode mode,
+      Optional<UserModel> member) {
+    String name = nameOnlyFilter(attributes);
+    if (name == null && attributes.values().stream().anyMatch(Objects::nonNull)) return null;
+    String queryName =
+        name == null
+            ? member.isPresent()
+                ? "searchOrganizationsByRealmIdAndMember"
+                : "searchOrganizationsByRealmId"
+            : member.isPresent()
+                ? "searchOrganizationsByRealmIdAndNameAndMember"
+                : "searchOrganizationsByRealmIdAndName";
+    TypedQuery<ExtOrganizationEntity> query =
+        em.createNamedQuery(queryName, ExtOrganizationEntity.class);
+    query.setParameter("realmId", realm.getId());
+    if (name != null) query.setParameter("search", mode.pattern(name));
+    member.ifPresent(u -> query.setParameter("userId", u.getId()));
+    return query;
+  }
+
+  /** The name filter if there are no other attribute filters, otherwise {@code null}. */
+  private static String nameOnlyFilter(Map<String, String> attributes) {
+    String name = null;
+    for (Map.Entry<String, String> entry : attributes.entrySet()) {
+      if (entry.getValue() == null) continue;
+      if (!entry.getKey().equals("name")) return null;
+      name = entry.getValue();
+    }
+    return name;
+  }
+
+  /**
+   * Lowercased term of a fuzzy search the database can rank by similarity, or {@code null} if the
+   * search falls back to the other modes: without {@code pg_trgm}, or with filters other than the
+   * name.
+   */
+  private String fuzzySearchTerm(
+      Map<String, String> attributes, String search, OrganizationSearchMode mode) {
+    if (mode != OrganizationSearchMode.FUZZY || !trigramSearch) return null;
+    String name = nameOnlyFilter(attributes);
+    if (name == null && attributes.values().stream().anyMatch(Objects::nonNull)) return null;
+    if (search != null && !search.trim().isEmpty()) {
+      if (name != null && !name.equals(search.trim())) return null;
+      name = search.trim();
+    }
+    return name == null || name.isEmpty() ? null : name.toLowerCase();
+  }
+
+  private <T> NativeQuery<T> fuzzySearchQuery(
+      String select,
+      String order,
+      Class<T> type,
+      RealmModel realm,
+      String term,
+      Optional<UserModel> member) {
+    String sql =
+        select + FUZZY_SEARCH_FROM + (member.isPresent() ? FUZZY_SEARCH_MEMBER : "") + order;
+    NativeQuery<T> query = em.unwrap(Session.class).createNativeQuery(sql, type);
+    query.setParameter("realmId", realm.getId());
+    query.setParameter("term", term);
+    query.setParameter("search", OrganizationSearchMode.CONTAINS.pattern(term));
+    member.ifPresent(u -> query.setParameter("userId", u.getId()));
+    return query;
+  }
+
+  /**
+   * Predicates for the attribute filters, all of which must match. Each attribute other than the
+   * name is an {@code EXISTS} subquery of its own, served by {@code IDX_ORG_ATTR_NAME_VALUE}, so
+   * that every filter can match a different attribute row of the organization.
+   */
   private List<Predicate> attributePredicates(
-      Map<String, String> attributes, Root<ExtOrganizationEntity> root) {
+      Map<String, String> attributes,
+      OrganizationSearchMode mode,
+      Root<ExtOrganizationEntity> root,
+      CriteriaQuery<?> queryBuilder) {
     CriteriaBuilder builder = em.getCriteriaBuilder();
 
     List<Predicate> predicates = new ArrayList<>();
-    List<Predicate> attributePredicates = new ArrayList<>();
 
     for (Map.Entry<String, String> entry : attributes.entrySet()) {
       String key = entry.getKey();
@@ -356,24 +862,22 @@ public class JpaOrganizationProvider implements OrganizationProvider {
       if (key.equals("name")) {
         predicates.add(
             builder.or(
-                builder.like(builder.lower(root.get("name")), "%" + value.toLowerCase() + "%"),
-                builder.like(
-                    builder.lower(root.get("displayName")), "%" + value.toLowerCase() + "%")));
+                builder.like(builder.lower(root.get("name")), mode.pattern(value)),
+                builder.like(builder.lower(root.get("displayName")), mode.pattern(value))));
       } else {
-        Join<ExtOrganizationEntity, OrganizationAttributeEntity> attributesJoin =
-            root.join("attributes", JoinType.LEFT);
-
-        attributePredicates.add(
-            builder.and(
-                builder.equal(attributesJoin.get("name"), key),
-                builder.equal(attributesJoin.get("value"), value)));
+        Subquery<Integer> attribute = queryBuilder.subquery(Integer.class);
+        Root<OrganizationAttributeEntity> attributeRoot =
+            attribute.from(OrganizationAttributeEntity.class);
+        attribute
+            .select(builder.literal(1))
+            .where(
+                builder.equal(attributeRoot.get("organization"), root),
+                builder.equal(attributeRoot.get("name"), key),
+                builder.equal(attributeRoot.get("value"), value));
+        predicates.add(builder.exists(attribute));
       }
     }
 
-    if (!attributePredicates.isEmpty()) {
-      predicates.add(builder.and(attributePredicates.toArray(new Predicate[0])));
-    }
-
     return predicates;
   }
 
@@ -9,6 +9,8 @@ import org.keycloak.Config.Scope;
 import org.keycloak.connections.jpa.JpaConnectionProvider;
 import org.keycloak.models.KeycloakSession;
 import org.keycloak.models.KeycloakSessionFactory;
+import org.keycloak.models.utils.KeycloakModelUtils;
+import org.keycloak.models.utils.PostMigrationEvent;
 
 @JBossLog
 @AutoService(OrganizationProviderFactory.class)
@@ -16,6 +18,9 @@ public class JpaOrganizationProviderFactory implements OrganizationProviderFacto
 
   public static final String PROVIDER_ID = "jpa-organization";
 
+  private volatile IdentityProviderConfigDialect dialect;
+  private volatile boolean trigramSearch;
+
   @Override
   public String getId() {
     return PROVIDER_ID;
@@ -24,14 +29,46 @@ public class JpaOrganizationProviderFactory implements OrganizationProviderFacto
   @Override
   public OrganizationProvider create(KeycloakSession session) {
     EntityManager em = session.getProvider(JpaConnectionProvider.class).getEntityManager();
-    return new JpaOrganizationProvider(session, em);
+    // normally resolved after migration, but a session may be created before that
+    if (dialect == null) detect(em);
+    return new JpaOrganizationProvider(session, em, dialect, trigramSearch);
   }
 
   @Override
   public void init(Scope config) {}
 
   @Override
-  public void postInit(KeycloakSessionFactory factory) {}
+  public void postInit(KeycloakSessionFactory factory) {
+    factory.register(
+        event -> {
+          if (event instanceof PostMigrationEvent && dialect == null) {
+            KeycloakModelUtils.runJobInTransaction(
+                factory,
+                session ->
+                    detect(session.getProvider(JpaConnectionProvider.class).getEntityManager()));
+          }
+        });
+  }
+
+  private void detect(EntityManager em) {
+    IdentityProviderConfigDialect detected = IdentityProviderConfigDialect.detect(em);
+    trigramSearch = detected == IdentityProviderConfigDialect.POSTGRESQL && hasTrigramExtension(em);
+    log.debugf(
+        "Fuzzy organization search %s", trigramSearch ? "uses pg_trgm" : "falls back to LIKE");
+    dialect = detected;
+  }
+
+  /**
+   * Whether {@code pg_trgm} is installed. The changelog only creates the trigram indexes if it
+   * could install the extension, which needs a privileged database user.
+   */
+  private static boolean hasTrigramExtension(EntityManager em) {
+    Number count =
+        (Number)
+            em.createNativeQuery("SELECT count(*) FROM pg_extension WHERE extname = 'pg_trgm'")
+                .getSingleResult();
+    return count.longValue() > 0;
+  }
 
   @Override
   public void close() {}
@@ -9,9 +9,11 @@ import static org.keycloak.utils.StreamsUtil.closing;
 
 import io.phasetwo.service.model.DomainModel;
 import io.phasetwo.service.model.InvitationModel;
+import io.phasetwo.service.model.KeysetPage;
 import io.phasetwo.service.model.OrganizationMemberModel;
 import io.phasetwo.service.model.OrganizationModel;
 import io.phasetwo.service.model.OrganizationRoleModel;
+import io.phasetwo.service.model.PageCursor;
 import io.phasetwo.service.model.jpa.entity.DomainEntity;
 import io.phasetwo.service.model.jpa.entity.ExtOrganizationEntity;
 import io.phasetwo.service.model.jpa.entity.InvitationEntity;
@@ -89,6 +91,7 @@ public class OrganizationAdapter implements OrganizationModel, JpaModel<ExtOrgan
 
   @Override
   public void setDomains(Set<String> domains) {
+    JpaOrganizationProvider.invalidateDomainRoutes(session, realm);
     //  org.setDomains(domains);
     Set<String> lower = domains.stream().map(String::toLowerCase).collect(Collectors.toSet());
     org.getDomains().removeIf(e -> !lower.contains(e.getDomain()));
@@ -172,6 +175,12 @@ public class OrganizationAdapter implements OrganizationModel, JpaModel<ExtOrgan
   }
 
   private TypedQuery<OrganizationMemberEntity> membersQuery(String search, boolean excludeAdmin) {
+    return membersQuery(search, excludeAdmin, null);
+  }
+
+  /** Members ordered by creation time and id, starting after the cursor if there is one. */
+  private TypedQuery<OrganizationMemberEntity> membersQuery(
+      String search, boolean excludeAdmin, PageCursor after) {
     CriteriaBuilder cb = em.getCriteriaBuilder();
     CriteriaQuery<OrganizationMemberEntity> criteriaQuery =
         cb.createQuery(OrganizationMemberEntity.class);
@@ -202,21 +211,22 @@ public class OrganizationAdapter implements OrganizationModel, JpaModel<ExtOrgan
     }
 
     if (excludeAdmin) {
-      List<Predicate> excludeAdminsPredicates = new ArrayList<>();
-      Subquery<String> subquery = criteriaQuery.subquery(String.class);
-      Root<UserEntity> subRoot = subquery.from(UserEntity.class);
-      excludeAdminsPredicates.add(cb.like(subRoot.get(USERNAME), "org-admin-%", ESCAPE_BACKSLASH));
-      excludeAdminsPredicates.add(cb.equal(cb.length(subRoot.get(USERNAME)), "46"));
-
-      subquery.select(subRoot.get("id"));
-      subquery.where(cb.not(cb.and(excludeAdminsPredicates.toArray(Predicate[]::new))));
+      predicates.add(cb.isFalse(root.get("systemUser")));
+    }
 
-      predicates.add(root.get("userId").in(subquery));
+    if (after != null) {
+      Date createdAt = after.getKeyAsDate();
+      predicates.add(
+          cb.or(
+              cb.greaterThan(root.get("createdAt"), createdAt),
+              cb.and(
+                  cb.equal(root.get("createdAt"), createdAt),
+                  cb.greaterThan(root.get("id"), after.getId()))));
     }
 
     criteriaQuery
         .where(predicates.toArray(Predicate[]::new))
-        .orderBy(cb.asc(root.get("createdAt")));
+        .orderBy(cb.asc(root.get("createdAt")), cb.asc(root.get("id")));
     return em.createQuery(criteriaQuery);
   }
 
@@ -246,6 +256,23 @@ public class OrganizationAdapter implements OrganizationModel, JpaModel<ExtOrgan
         .filter(u -> u.getServiceAccountClientLink() == null);
   }
 
+  @Override
+  public KeysetPage<UserModel> searchForMembersPage(
+      String search, PageCursor after, int maxResults, boolean excludeAdmin) {
+    List<OrganizationMemberEntity> rows =
+        membersQuery(search, excludeAdmin, after).setMaxResults(maxResults + 1).getResultList();
+    KeysetPage<OrganizationMemberEntity> page =
+        KeysetPage.of(rows, maxResults, m -> new PageCursor(m.getCreatedAt(), m.getId()));
+    // users removed since, and service accounts, are skipped but still move the cursor
+    return new KeysetPage<>(
+        page.getItems().stream()
+            .map(m -> session.users().getUserById(realm, m.getUserId()))
+            .filter(Objects::nonNull)
+            .filter(u -> u.getServiceAccountClientLink() == null)
+            .toList(),
+        page.getNext());
+  }
+
   @Override
   public Stream<OrganizationMemberModel> getOrganizationMembersStream() {
     TypedQuery<OrganizationMemberEntity> query =
@@ -337,28 +364,35 @@ public class OrganizationAdapter implements OrganizationModel, JpaModel<ExtOrgan
 
   @Override
   public boolean hasMembership(UserModel user) {
-    return org.getMembers().stream().anyMatch(m -> m.getUserId().equals(user.getId()));
+    TypedQuery<Long> query = em.createNamedQuery("hasOrganizationMember", Long.class);
+    query.setParameter("organization", org);
+    query.setParameter("userId", user.getId());
+    return query.getSingleResult() > 0;
   }
 
   @Override
-  public void grantMembership(UserModel user) {
+  public void grantMembership(UserModel user, boolean systemUser) {
     if (hasMembership(user)) return;
     OrganizationMemberEntity m = new OrganizationMemberEntity();
     m.setId(KeycloakModelUtils.generateId());
     m.setUserId(user.getId());
     m.setOrganization(org);
+    m.setSystemUser(systemUser);
     em.persist(m);
-    org.getMembers().add(m);
+    // only keep the collection in sync if something already loaded it
+    if (isLoaded(org, "members")) org.getMembers().add(m);
   }
 
   @Override
   public void revokeMembership(UserModel user) {
-    if (!hasMembership(user)) return;
-    org.getMembers().removeIf(m -> m.getUserId().equals(user.getId()));
+    OrganizationMemberEntity m = getMemberEntity(user);
+    if (m == null) return;
+    if (isLoaded(org, "members")) org.getMembers().remove(m);
+    em.remove(m);
     getRolesEntityByUserStream(user)
         .forEach(
             e -> {
-              e.getRole().getUserMappings().remove(e);
+              if (isLoaded(e.getRole(), "userMappings")) e.getRole().getUserMappings().remove(e);
               em.remove(e);
             });
     if (user.getEmail() != null) revokeInvitations(user.getEmail());
@@ -385,6 +419,47 @@ public class OrganizationAdapter implements OrganizationModel, JpaModel<ExtOrgan
     return org.getInvitations().stream().map(i -> new InvitationAdapter(session, realm, em, i));
   }
 
+  @Override
+  public KeysetPage<InvitationModel> searchForInvitationsPage(
+      String search, PageCursor after, int maxResults) {
+    CriteriaBuilder cb = em.getCriteriaBuilder();
+    CriteriaQuery<InvitationEntity> criteriaQuery = cb.createQuery(InvitationEntity.class);
+    Root<InvitationEntity> root = criteriaQuery.from(InvitationEntity.class);
+
+    List<Predicate> predicates = new ArrayList<>();
+    predicates.add(cb.equal(root.get("organization"), org));
+    if (search != null && !search.isEmpty()) {
+      predicates.add(cb.like(root.get("email"), "%" + search + "%", ESCAPE_BACKSLASH));
+    }
+    if (after != null) {
+      Date createdAt = after.getKeyAsDate();
+      predicates.add(
+          cb.or(
+              cb.greaterThan(root.get("createdAt"), createdAt),
+              cb.and(
+                  cb.equal(root.get("createdAt"), createdAt),
+                  cb.greaterThan(root.get("id"), after.getId()))));
+    }
+    criteriaQuery
+        .where(predicates.toArray(Predicate[]::new))
+        .orderBy(cb.asc(root.get("createdAt")), cb.asc(root.get("id")));
+
+    List<InvitationEntity> rows =
+        em.createQuery(criteriaQuery).setMaxResults(maxResults + 1).getResultList();
+    return KeysetPage.of(rows, maxResults, i -> new PageCursor(i.getCreatedAt(), i.getId()))
+        .map(i -> new InvitationAdapter(session, realm, em, i));
+  }
+
+  @Override
+  public Stream<InvitationModel> getInvitationsByEmail(String email) {
+    if (email == null) return Stream.empty();
+    TypedQuery<InvitationEntity> query =
+        em.createNamedQuery("getInvitationsByOrganizationIdAndEmail", InvitationEntity.class);
+    query.setParameter("organizationId", org.getId());
+    query.setParameter("email", email.toLowerCase());
+    return query.getResultStream().map(i -> new InvitationAdapter(session, realm, em, i));
+  }
+
   @Override
   public InvitationModel getInvitation(String id) {
     InvitationEntity ie = em.find(InvitationEntity.class, id);
@@ -431,16 +506,9 @@ public class OrganizationAdapter implements OrganizationModel, JpaModel<ExtOrgan
 
   @Override
   public OrganizationMemberModel getMembershipDetails(UserModel user) {
-    TypedQuery<OrganizationMemberEntity> query =
-        em.createNamedQuery("getOrganizationMemberByUserId", OrganizationMemberEntity.class);
-    query.setParameter("organization", org);
-    query.setParameter("userId", user.getId());
-    try {
-      OrganizationMemberEntity organizationMemberEntity = query.getSingleResult();
-      return new OrganizationMemberAdapter(session, realm, em, organizationMemberEntity);
-    } catch (Exception e) {
-      return null;
-    }
+    OrganizationMemberEntity organizationMemberEntity = getMemberEntity(user);
+    if (organizationMemberEntity == null) return null;
+    return new OrganizationMemberAdapter(session, realm, em, organizationMemberEntity);
   }
 
   @Override
@@ -461,11 +529,11 @@ public class OrganizationAdapter implements OrganizationModel, JpaModel<ExtOrgan
 
   @Override
   public Stream<IdentityProviderModel> getIdentityProvidersStream() {
-    return IdentityProviders.getIdentityProvidersStream(
-        session, em, getRealm(), "home.idp.discovery.org", getId(), false);
+    return IdentityProviders.getOrganizationIdentityProvidersStream(
+        session, em, getRealm(), getId());
   }
 
-  private Predicate[] getSearchOptionPredicateArray(
+  static Predicate[] getSearchOptionPredicateArray(
       String value, CriteriaBuilder builder, From<?, UserEntity> from) {
     value = value.trim().toLowerCase();
     List<Predicate> orPredicates = new ArrayList<>();
@@ -479,6 +547,18 @@ public class OrganizationAdapter implements OrganizationModel, JpaModel<ExtOrgan
     return orPredicates.toArray(Predicate[]::new);
   }
 
+  private OrganizationMemberEntity getMemberEntity(UserModel user) {
+    TypedQuery<OrganizationMemberEntity> query =
+        em.createNamedQuery("getOrganizationMemberByUserId", OrganizationMemberEntity.class);
+    query.setParameter("organization", org);
+    query.setParameter("userId", user.getId());
+    return query.getResultStream().findFirst().orElse(null);
+  }
+
+  private boolean isLoaded(Object entity, String attribute) {
+    return em.getEntityManagerFactory().getPersistenceUnitUtil().isLoaded(entity, attribute);
+  }
+
   private Stream<UserOrganizationRoleMappingEntity> getRolesEntityByUserStream(UserModel user) {
     TypedQuery<UserOrganizationRoleMappingEntity> query =
         em.createNamedQuery("getMappingsByUser", UserOrganizationRoleMappingEntity.class);
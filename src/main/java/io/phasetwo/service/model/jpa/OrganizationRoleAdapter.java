@@ -90,14 +90,15 @@ public class OrganizationRoleAdapter
     m.setUserId(user.getId());
     m.setRole(role);
     em.persist(m);
-    role.getUserMappings().add(m);
+    // only keep the collection in sync if something already loaded it
+    if (isLoaded()) role.getUserMappings().add(m);
   }
 
   @Override
   public void revokeRole(UserModel user) {
     UserOrganizationRoleMappingEntity e = getByUser(user);
     if (e != null) {
-      role.getUserMappings().remove(e);
+      if (isLoaded()) role.getUserMappings().remove(e);
       em.remove(e);
       em.flush();
     }
@@ -108,6 +109,10 @@ public class OrganizationRoleAdapter
     return (getByUser(user) != null);
   }
 
+  private boolean isLoaded() {
+    return em.getEntityManagerFactory().getPersistenceUnitUtil().isLoaded(role, "userMappings");
+  }
+
   UserOrganizationRoleMappingEntity getByUser(UserModel user) {
     TypedQuery<UserOrganizationRoleMappingEntity> query =
         em.createNamedQuery("getMappingByRoleAndUser", UserOrganizationRoleMappingEntity.class);
@@ -19,6 +19,16 @@ import jakarta.persistence.*;
       name = "getDomainByOrganizationAndDomainName",
       query =
           "SELECT t FROM DomainEntity t WHERE t.organization = :organization AND lower(t.domain) LIKE lower(:search)"),
+  @NamedQuery(
+      name = "getDomainRoutesByRealm",
+      query =
+          "SELECT t.domain, t.organization.id, t.verified FROM DomainEntity t WHERE"
+              + " t.organization.realmId = :realmId"),
+  @NamedQuery(
+      name = "getDomainRoutesByRealmAndDomains",
+      query =
+          "SELECT t.domain, t.organization.id, t.verified FROM DomainEntity t WHERE t.domain IN"
+              + " :domains AND t.organization.realmId = :realmId"),
   @NamedQuery(
       name = "getDomainCount",
       query = "select count(t) from DomainEntity t where t.organization = :organization")
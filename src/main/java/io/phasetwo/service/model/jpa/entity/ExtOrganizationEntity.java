@@ -27,6 +27,30 @@ import org.hibernate.annotations.Nationalized;
       name = "countOrganizationsByRealmIdAndName",
       query =
           "SELECT count(o) FROM ExtOrganizationEntity o WHERE o.realmId = :realmId AND lower(o.name) LIKE lower(:search)"),
+  @NamedQuery(
+      name = "searchOrganizationsByRealmId",
+      query =
+          "SELECT o FROM ExtOrganizationEntity o WHERE o.realmId = :realmId ORDER BY o.name, o.id"),
+  @NamedQuery(
+      name = "searchOrganizationsByRealmIdAndName",
+      query =
+          "SELECT o FROM ExtOrganizationEntity o WHERE o.realmId = :realmId AND (lower(o.name) LIKE :search OR lower(o.displayName) LIKE :search) ORDER BY o.name, o.id"),
+  @NamedQuery(
+      name = "countSearchOrganizationsByRealmIdAndName",
+      query =
+          "SELECT count(o) FROM ExtOrganizationEntity o WHERE o.realmId = :realmId AND (lower(o.name) LIKE :search OR lower(o.displayName) LIKE :search)"),
+  @NamedQuery(
+      name = "searchOrganizationsByRealmIdAndMember",
+      query =
+          "SELECT o FROM ExtOrganizationEntity o WHERE o.realmId = :realmId AND EXISTS (SELECT m FROM OrganizationMemberEntity m WHERE m.organization = o AND m.userId = :userId) ORDER BY o.name, o.id"),
+  @NamedQuery(
+      name = "searchOrganizationsByRealmIdAndNameAndMember",
+      query =
+          "SELECT o FROM ExtOrganizationEntity o WHERE o.realmId = :realmId AND (lower(o.name) LIKE :search OR lower(o.displayName) LIKE :search) AND EXISTS (SELECT m FROM OrganizationMemberEntity m WHERE m.organization = o AND m.userId = :userId) ORDER BY o.name, o.id"),
+  @NamedQuery(
+      name = "resolveOrganizationsWithMembership",
+      query =
+          "SELECT o.id, o.name, CASE WHEN EXISTS (SELECT m FROM OrganizationMemberEntity m WHERE m.organization = o AND m.userId = :userId) THEN true ELSE false END FROM ExtOrganizationEntity o WHERE o.realmId = :realmId AND o.id IN :ids"),
   @NamedQuery(
       name = "getOrganizationCount",
       query = "select count(o) from ExtOrganizationEntity o where o.realmId = :realmId"),
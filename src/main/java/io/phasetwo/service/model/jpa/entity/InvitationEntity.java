@@ -24,6 +24,10 @@ import java.util.Set;
       name = "getInvitationsByOrganizationAndEmail",
       query =
           "SELECT t FROM InvitationEntity t WHERE t.organization = :organization AND lower(t.email) LIKE lower(:search) ORDER BY t.email"),
+  @NamedQuery(
+      name = "getInvitationsByOrganizationIdAndEmail",
+      query =
+          "SELECT t FROM InvitationEntity t WHERE t.organization.id = :organizationId AND t.email = :email"),
   @NamedQuery(
       name = "getInvitationsByRealmAndEmail",
       query =
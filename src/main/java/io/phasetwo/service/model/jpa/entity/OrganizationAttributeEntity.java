@@ -25,6 +25,12 @@ import org.hibernate.annotations.Nationalized;
       name = "getOrganizationAttributesByName",
       query =
           "SELECT attr FROM OrganizationAttributeEntity attr WHERE attr.organization = :organization AND attr.name = :name"),
+  @NamedQuery(
+      name = "getOrganizationAttributesByOrganizationIds",
+      query =
+          "SELECT attr.organization.id, attr.name, attr.value FROM OrganizationAttributeEntity attr"
+              + " WHERE attr.organization.realmId = :realmId AND attr.organization.id IN"
+              + " :organizationIds"),
 })
 @Table(
     name = "ORGANIZATION_ATTRIBUTE",
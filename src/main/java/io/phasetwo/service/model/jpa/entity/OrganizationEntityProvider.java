@@ -16,7 +16,8 @@ public class OrganizationEntityProvider implements JpaEntityProvider {
     OrganizationRoleEntity.class,
     UserOrganizationRoleMappingEntity.class,
     InvitationEntity.class,
-    InvitationAttributeEntity.class
+    InvitationAttributeEntity.class,
+    OrganizationIdentityProviderEntity.class
   };
 
   @Override
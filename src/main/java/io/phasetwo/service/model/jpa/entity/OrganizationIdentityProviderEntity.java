@@ -0,0 +1,143 @@
+package io.phasetwo.service.model.jpa.entity;
+
+import jakarta.persistence.Access;
+import jakarta.persistence.AccessType;
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.NamedQueries;
+import jakarta.persistence.NamedQuery;
+import jakarta.persistence.Table;
+import jakarta.persistence.UniqueConstraint;
+
+/**
+ * Link between an organization and an identity provider it owns. This mirrors the {@code
+ * home.idp.discovery.org}, {@code home.idp.discovery.domains} and {@code home.idp.discovery.shared}
+ * values of the IdP config in a form that can be looked up by index. The IdP config remains the
+ * source of truth; rows are rewritten whenever the IdP is created, updated or removed. IdPs created
+ * outside of the organization APIs are linked by a periodic task.
+ */
+@NamedQueries({
+  @NamedQuery(
+      name = "getOrganizationIdentityProvidersByIdp",
+      query =
+          "SELECT l FROM OrganizationIdentityProviderEntity l WHERE l.idpInternalId ="
+              + " :idpInternalId"),
+  @NamedQuery(
+      name = "getIdentityProvidersByOrganization",
+      query =
+          "SELECT i FROM IdentityProviderEntity i, OrganizationIdentityProviderEntity l WHERE"
+              + " l.idpInternalId = i.internalId AND l.organizationId = :organizationId AND"
+              + " i.realmId = :realmId ORDER BY i.alias"),
+  @NamedQuery(
+      name = "getIdentityProviderRoutesByRealm",
+      query =
+          "SELECT l.organizationId, i.alias, l.domains, VALUE(c) FROM IdentityProviderEntity i LEFT"
+              + " JOIN i.config c ON KEY(c) = :configKey, OrganizationIdentityProviderEntity l"
+              + " WHERE l.idpInternalId = i.internalId AND i.realmId = :realmId AND i.enabled ="
+              + " true ORDER BY i.alias"),
+  @NamedQuery(
+      name = "getIdentityProviderRoutesByOrganizations",
+      query =
+          "SELECT l.organizationId, i.alias, l.domains, VALUE(c) FROM IdentityProviderEntity i LEFT"
+              + " JOIN i.config c ON KEY(c) = :configKey, OrganizationIdentityProviderEntity l"
+              + " WHERE l.idpInternalId = i.internalId AND l.organizationId IN :organizationIds AND"
+              + " i.realmId = :realmId AND i.enabled = true ORDER BY i.alias"),
+  @NamedQuery(
+      name = "getIdentityProvidersWithoutOrganizationLinks",
+      query =
+          "SELECT i FROM IdentityProviderEntity i JOIN i.config c WHERE KEY(c) = :configKey AND"
+              + " NOT EXISTS (SELECT l.id FROM OrganizationIdentityProviderEntity l WHERE"
+              + " l.idpInternalId = i.internalId)"),
+  @NamedQuery(
+      name = "removeOrganizationIdentityProvidersByOrganization",
+      query =
+          "DELETE FROM OrganizationIdentityProviderEntity l WHERE l.organizationId ="
+              + " :organizationId"),
+  @NamedQuery(
+      name = "removeOrganizationIdentityProvidersByIdp",
+      query =
+          "DELETE FROM OrganizationIdentityProviderEntity l WHERE l.idpInternalId ="
+              + " :idpInternalId")
+})
+@Table(
+    name = "ORGANIZATION_IDENTITY_PROVIDER",
+    uniqueConstraints = {@UniqueConstraint(columnNames = {"ORGANIZATION_ID", "IDP_INTERNAL_ID"})})
+@Entity
+public class OrganizationIdentityProviderEntity {
+
+  @Id
+  @Column(name = "ID", length = 36)
+  @Access(AccessType.PROPERTY)
+  protected String id;
+
+  @Column(name = "ORGANIZATION_ID", length = 36)
+  protected String organizationId;
+
+  @Column(name = "IDP_INTERNAL_ID", length = 36)
+  protected String idpInternalId;
+
+  @Column(name = "DOMAINS")
+  protected String domains;
+
+  @Column(name = "SHARED")
+  protected boolean shared;
+
+  public String getId() {
+    return id;
+  }
+
+  public void setId(String id) {
+    this.id = id;
+  }
+
+  public String getOrganizationId() {
+    return organizationId;
+  }
+
+  public void setOrganizationId(String organizationId) {
+    this.organizationId = organizationId;
+  }
+
+  public String getIdpInternalId() {
+    return idpInternalId;
+  }
+
+  public void setIdpInternalId(String idpInternalId) {
+    this.idpInternalId = idpInternalId;
+  }
+
+  public String getDomains() {
+    return domains;
+  }
+
+  public void setDomains(String domains) {
+    this.domains = domains;
+  }
+
+  public boolean isShared() {
+    return shared;
+  }
+
+  public void setShared(boolean shared) {
+    this.shared = shared;
+  }
+
+  @Override
+  public boolean equals(Object o) {
+    if (this == o) return true;
+    if (o == null) return false;
+    if (!(o instanceof OrganizationIdentityProviderEntity)) return false;
+
+    OrganizationIdentityProviderEntity that = (OrganizationIdentityProviderEntity) o;
+
+    if (!id.equals(that.id)) return false;
+
+    return true;
+  }
+
+  @Override
+  public int hashCode() {
+    return id.hashCode();
+  }
+}
@@ -35,16 +35,29 @@ import java.util.Objects;
   @NamedQuery(
       name = "getOrganizationMembersCountExcludeAdmin",
       query =
-          "SELECT COUNT(m) FROM OrganizationMemberEntity m WHERE m.organization = :organization"
-              + " AND m.userId NOT IN "
-              + " (SELECT u.id FROM UserEntity u WHERE u.username LIKE 'org-admin-%' AND LENGTH(u.username) = 46)"),
+          "SELECT COUNT(m) FROM OrganizationMemberEntity m WHERE m.organization = :organization AND"
+              + " m.systemUser = false"),
   @NamedQuery(
       name = "getOrganizationMemberByUserId",
       query =
           "SELECT m FROM OrganizationMemberEntity m WHERE m.userId = :userId AND m.organization = :organization"),
+  @NamedQuery(
+      name = "hasOrganizationMember",
+      query =
+          "SELECT COUNT(m) FROM OrganizationMemberEntity m WHERE m.organization = :organization"
+              + " AND m.userId = :userId"),
   @NamedQuery(
       name = "getOrganizationMembershipsByUserId",
-      query = "SELECT m FROM OrganizationMemberEntity m WHERE m.userId = :userId")
+      query = "SELECT m FROM OrganizationMemberEntity m WHERE m.userId = :userId"),
+  @NamedQuery(
+      name = "getUserOrganizationRoles",
+      query =
+          "SELECT o.id, o.name, o.displayName, o.url, r.name FROM OrganizationMemberEntity m"
+              + " JOIN m.organization o"
+              + " LEFT JOIN OrganizationRoleEntity r ON r.organization = o AND EXISTS"
+              + " (SELECT um.id FROM UserOrganizationRoleMappingEntity um"
+              + " WHERE um.role = r AND um.userId = m.userId)"
+              + " WHERE m.userId = :userId AND o.realmId = :realmId")
 })
 @Table(
     name = "ORGANIZATION_MEMBER",
@@ -70,6 +83,10 @@ public class OrganizationMemberEntity {
   @Column(name = "CREATED_AT")
   protected Date createdAt;
 
+  /** Whether the member is the {@code org-admin-<orgId>} user created with the organization. */
+  @Column(name = "IS_SYSTEM_USER", nullable = false)
+  protected boolean systemUser;
+
   @OneToMany(cascade = CascadeType.ALL, orphanRemoval = true, mappedBy = "organizationMember")
   protected Collection<OrganizationMemberAttributeEntity> attributes = new ArrayList<>();
 
@@ -110,6 +127,14 @@ public class OrganizationMemberEntity {
     createdAt = at;
   }
 
+  public boolean isSystemUser() {
+    return systemUser;
+  }
+
+  public void setSystemUser(boolean systemUser) {
+    this.systemUser = systemUser;
+  }
+
   public Collection<OrganizationMemberAttributeEntity> getAttributes() {
     return attributes;
   }
@@ -30,9 +30,9 @@ import java.util.Objects;
   @NamedQuery(
       name = "getMappingByRoleExcludeAdmin",
       query =
-          "SELECT m FROM UserOrganizationRoleMappingEntity m WHERE m.role=:role"
-              + " AND m.userId NOT IN "
-              + " (SELECT u.id FROM UserEntity u WHERE u.username LIKE 'org-admin-%' AND LENGTH(u.username) = 46)"),
+          "SELECT m FROM UserOrganizationRoleMappingEntity m WHERE m.role=:role AND NOT EXISTS"
+              + " (SELECT om.id FROM OrganizationMemberEntity om WHERE om.organization ="
+              + " m.role.organization AND om.userId = m.userId AND om.systemUser = true)"),
   @NamedQuery(
       name = "getMappingByRoleAndUser",
       query =
@@ -40,7 +40,8 @@ import java.util.Objects;
   @NamedQuery(
       name = "getMappingsByUser",
       query =
-          "SELECT m FROM UserOrganizationRoleMappingEntity m WHERE m.userId = :userId AND m.role.organization.id = :orgId"),
+          "SELECT m FROM UserOrganizationRoleMappingEntity m JOIN FETCH m.role r WHERE m.userId ="
+              + " :userId AND r.organization.id = :orgId"),
 })
 @Table(
     name = "USER_ORGANIZATION_ROLE_MAPPING",
@@ -1,7 +1,10 @@
 package io.phasetwo.service.protocol.oidc.mappers;
 
+import java.util.Arrays;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
 import lombok.extern.jbosslog.JBossLog;
 import org.keycloak.models.ClientSessionContext;
 import org.keycloak.models.KeycloakSession;
@@ -22,6 +25,33 @@ import org.keycloak.representations.IDToken;
 public abstract class AbstractOrganizationMapper extends AbstractOIDCProtocolMapper
     implements OIDCAccessTokenMapper, OIDCIDTokenMapper, UserInfoTokenMapper {
 
+  public static final String INCLUDED_ORGANIZATION_ATTRIBUTES = "included.organization.attributes";
+
+  static ProviderConfigProperty includedAttributesProperty() {
+    ProviderConfigProperty property = new ProviderConfigProperty();
+    property.setName(INCLUDED_ORGANIZATION_ATTRIBUTES);
+    property.setLabel("Included Organization Attributes");
+    property.setHelpText(
+        "Organization attributes to map into the token claim, separated by comma. "
+            + "Names ending with * match all attributes with that prefix, e.g. billing.*. "
+            + "Leave empty to include all attributes.");
+    property.setType(ProviderConfigProperty.STRING_TYPE);
+    return property;
+  }
+
+  /**
+   * Attribute names configured with {@link #INCLUDED_ORGANIZATION_ATTRIBUTES}, or {@code null} if
+   * all attributes should be included.
+   */
+  static Set<String> getIncludedAttributes(ProtocolMapperModel mappingModel) {
+    String included = mappingModel.getConfig().get(INCLUDED_ORGANIZATION_ATTRIBUTES);
+    if (included == null || included.isBlank()) return null;
+    return Arrays.stream(included.split(","))
+        .map(String::trim)
+        .filter(s -> !s.isEmpty())
+        .collect(Collectors.toSet());
+  }
+
   AbstractOrganizationMapper(
       String providerId,
       String displayType,
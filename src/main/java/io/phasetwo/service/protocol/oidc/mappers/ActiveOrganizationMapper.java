@@ -1,13 +1,21 @@
 package io.phasetwo.service.protocol.oidc.mappers;
 
 import com.google.auto.service.AutoService;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
 import com.google.common.collect.Lists;
 import com.google.common.collect.Maps;
+import io.phasetwo.service.model.OrganizationModel;
+import io.phasetwo.service.model.OrganizationProvider;
 import io.phasetwo.service.util.ActiveOrganization;
 import java.util.Arrays;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
 import lombok.extern.jbosslog.JBossLog;
+import org.keycloak.common.util.MultivaluedHashMap;
 import org.keycloak.models.KeycloakSession;
 import org.keycloak.models.ProtocolMapperModel;
 import org.keycloak.models.RealmModel;
@@ -27,6 +35,7 @@ public class ActiveOrganizationMapper extends AbstractOrganizationMapper {
   private static final String NAME = "name";
   private static final String ROLE = "role";
   private static final String ATTRIBUTE = "attribute";
+  private static final String DEFAULT_ORGANIZATION_PROPERTIES = "id, name, role, attribute";
 
   private static final List<ProviderConfigProperty> configProperties = Lists.newArrayList();
 
@@ -39,8 +48,9 @@ public class ActiveOrganizationMapper extends AbstractOrganizationMapper {
             + "it can be multiple, separated by comma. Available properties are: id, name, role and attribute. "
             + "For example you can write: id or id, role");
     property.setType(ProviderConfigProperty.STRING_TYPE);
-    property.setDefaultValue("id, name, role, attribute");
+    property.setDefaultValue(DEFAULT_ORGANIZATION_PROPERTIES);
     configProperties.add(property);
+    configProperties.add(includedAttributesProperty());
 
     OIDCAttributeMapperHelper.addAttributeConfig(configProperties, ActiveOrganizationMapper.class);
   }
@@ -54,6 +64,38 @@ public class ActiveOrganizationMapper extends AbstractOrganizationMapper {
         configProperties);
   }
 
+  /** Mapper configuration parsed once per mapper model and reused until the config changes. */
+  private static final class ParsedConfig {
+    private final Map<String, String> config;
+    private final Set<String> properties;
+    private final Set<String> includedAttributes;
+
+    private ParsedConfig(ProtocolMapperModel mappingModel) {
+      this.config = new HashMap<>(mappingModel.getConfig());
+      String inputProperties = mappingModel.getConfig().get(INCLUDED_ORGANIZATION_PROPERTIES);
+      if (inputProperties == null) inputProperties = DEFAULT_ORGANIZATION_PROPERTIES;
+      this.properties =
+          Arrays.stream(inputProperties.split(","))
+              .map(String::trim)
+              .filter(p -> !p.isEmpty())
+              .collect(Collectors.toUnmodifiableSet());
+      this.includedAttributes = getIncludedAttributes(mappingModel);
+    }
+  }
+
+  private static final Cache<String, ParsedConfig> parsedConfigs =
+      CacheBuilder.newBuilder().maximumSize(1000).build();
+
+  private static ParsedConfig getParsedConfig(ProtocolMapperModel mappingModel) {
+    if (mappingModel.getId() == null) return new ParsedConfig(mappingModel);
+    ParsedConfig parsed = parsedConfigs.getIfPresent(mappingModel.getId());
+    if (parsed == null || !parsed.config.equals(mappingModel.getConfig())) {
+      parsed = new ParsedConfig(mappingModel);
+      parsedConfigs.put(mappingModel.getId(), parsed);
+    }
+    return parsed;
+  }
+
   @Override
   protected Map<String, Object> getOrganizationClaim(
       KeycloakSession session, RealmModel realm, UserModel user, ProtocolMapperModel mappingModel) {
@@ -64,24 +106,30 @@ public class ActiveOrganizationMapper extends AbstractOrganizationMapper {
       return Maps.newHashMap();
     }
 
-    String inputProperties = mappingModel.getConfig().get(INCLUDED_ORGANIZATION_PROPERTIES);
-    List<String> properties = Arrays.asList(inputProperties.replaceAll("\\s", "").split(","));
+    ParsedConfig config = getParsedConfig(mappingModel);
+    OrganizationModel organization = activeOrganizationUtil.getOrganization();
 
     Map<String, Object> claim = Maps.newHashMap();
-    if (properties.contains(ID)) {
-      claim.put(ID, activeOrganizationUtil.getOrganization().getId());
+    if (config.properties.contains(ID)) {
+      claim.put(ID, organization.getId());
     }
 
-    if (properties.contains(NAME)) {
-      claim.put(NAME, activeOrganizationUtil.getOrganization().getName());
+    if (config.properties.contains(NAME)) {
+      claim.put(NAME, organization.getName());
     }
 
-    if (properties.contains(ROLE)) {
+    if (config.properties.contains(ROLE)) {
       claim.put(ROLE, activeOrganizationUtil.getUserActiveOrganizationRoles());
     }
 
-    if (properties.contains(ATTRIBUTE)) {
-      claim.put(ATTRIBUTE, activeOrganizationUtil.getOrganization().getAttributes());
+    if (config.properties.contains(ATTRIBUTE)) {
+      claim.put(
+          ATTRIBUTE,
+          session
+              .getProvider(OrganizationProvider.class)
+              .getOrganizationsAttributes(
+                  realm, List.of(organization.getId()), config.includedAttributes)
+              .getOrDefault(organization.getId(), new MultivaluedHashMap<>()));
     }
 
     log.debugf("created user %s claim %s", user.getUsername(), claim);
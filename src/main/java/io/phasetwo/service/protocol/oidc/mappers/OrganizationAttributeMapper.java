@@ -4,9 +4,11 @@ import com.google.auto.service.AutoService;
 import com.google.common.collect.Lists;
 import com.google.common.collect.Maps;
 import io.phasetwo.service.model.OrganizationProvider;
+import io.phasetwo.service.model.UserOrganizationRoles;
 import java.util.List;
 import java.util.Map;
 import lombok.extern.jbosslog.JBossLog;
+import org.keycloak.common.util.MultivaluedHashMap;
 import org.keycloak.models.KeycloakSession;
 import org.keycloak.models.ProtocolMapperModel;
 import org.keycloak.models.RealmModel;
@@ -24,6 +26,7 @@ public class OrganizationAttributeMapper extends AbstractOrganizationMapper {
   private static final List<ProviderConfigProperty> configProperties = Lists.newArrayList();
 
   static {
+    configProperties.add(includedAttributesProperty());
     OIDCAttributeMapperHelper.addAttributeConfig(
         configProperties, OrganizationAttributeMapper.class);
   }
@@ -42,14 +45,22 @@ public class OrganizationAttributeMapper extends AbstractOrganizationMapper {
       KeycloakSession session, RealmModel realm, UserModel user, ProtocolMapperModel mappingModel) {
     OrganizationProvider orgs = session.getProvider(OrganizationProvider.class);
     Map<String, Object> claim = Maps.newHashMap();
-    orgs.getUserOrganizationsStream(realm, user)
-        .forEach(
-            o -> {
-              Map<String, Object> org = Maps.newHashMap();
-              org.put("name", o.getName());
-              org.put("attributes", o.getAttributes());
-              claim.put(o.getId(), org);
-            });
+    List<UserOrganizationRoles> memberships =
+        orgs.getUserOrganizationRolesStream(realm, user).toList();
+    Map<String, Map<String, List<String>>> attributes =
+        orgs.getOrganizationsAttributes(
+            realm,
+            memberships.stream().map(UserOrganizationRoles::getOrganizationId).toList(),
+            getIncludedAttributes(mappingModel));
+    memberships.forEach(
+        m -> {
+          Map<String, Object> org = Maps.newHashMap();
+          org.put("name", m.getOrganizationName());
+          org.put(
+              "attributes",
+              attributes.getOrDefault(m.getOrganizationId(), new MultivaluedHashMap<>()));
+          claim.put(m.getOrganizationId(), org);
+        });
     log.debugf("created user %s claim %s", user.getUsername(), claim);
     return claim;
   }
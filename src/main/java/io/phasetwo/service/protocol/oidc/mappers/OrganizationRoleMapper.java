@@ -4,7 +4,6 @@ import com.google.auto.service.AutoService;
 import com.google.common.collect.Lists;
 import com.google.common.collect.Maps;
 import io.phasetwo.service.model.OrganizationProvider;
-import io.phasetwo.service.model.OrganizationRoleModel;
 import java.util.List;
 import java.util.Map;
 import lombok.extern.jbosslog.JBossLog;
@@ -51,15 +50,13 @@ public class OrganizationRoleMapper extends AbstractOrganizationMapper {
       KeycloakSession session, RealmModel realm, UserModel user, ProtocolMapperModel mappingModel) {
     OrganizationProvider orgs = session.getProvider(OrganizationProvider.class);
     Map<String, Object> claim = Maps.newHashMap();
-    orgs.getUserOrganizationsStream(realm, user)
+    orgs.getUserOrganizationRolesStream(realm, user)
         .forEach(
             o -> {
-              List<String> roles =
-                  o.getRolesByUserStream(user).map(OrganizationRoleModel::getName).toList();
               Map<String, Object> org = Maps.newHashMap();
-              org.put("name", o.getName());
-              org.put("roles", roles);
-              claim.put(o.getId(), org);
+              org.put("name", o.getOrganizationName());
+              org.put("roles", o.getRoleNames());
+              claim.put(o.getOrganizationId(), org);
             });
     log.debugf("created user %s claim %s", user.getUsername(), claim);
     return claim;
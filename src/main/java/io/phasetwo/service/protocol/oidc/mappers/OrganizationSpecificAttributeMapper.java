@@ -4,6 +4,7 @@ import com.google.auto.service.AutoService;
 import com.google.common.collect.Lists;
 import com.google.common.collect.Maps;
 import io.phasetwo.service.model.OrganizationProvider;
+import io.phasetwo.service.model.UserOrganizationRoles;
 import java.util.List;
 import java.util.Map;
 import lombok.extern.jbosslog.JBossLog;
@@ -42,13 +43,17 @@ public class OrganizationSpecificAttributeMapper extends AbstractOrganizationMap
       KeycloakSession session, RealmModel realm, UserModel user, ProtocolMapperModel mappingModel) {
     OrganizationProvider orgs = session.getProvider(OrganizationProvider.class);
     Map<String, Object> organizationClaim = Maps.newHashMap();
-    orgs.getUserOrganizationsStream(realm, user)
+    List<String> orgIds =
+        orgs.getUserOrganizationRolesStream(realm, user)
+            .map(UserOrganizationRoles::getOrganizationId)
+            .toList();
+    orgs.getOrganizationsAttributes(realm, orgIds)
         .forEach(
-            o -> {
+            (orgId, attributes) -> {
               // add to token only when value is available
-              String attributeValue = o.getFirstAttribute(mappingModel.getName());
-              if (attributeValue != null) {
-                organizationClaim.put(o.getId(), attributeValue);
+              List<String> values = attributes.get(mappingModel.getName());
+              if (values != null && !values.isEmpty() && values.get(0) != null) {
+                organizationClaim.put(orgId, values.get(0));
               }
             });
     log.debugf("created user %s organization claim %s", user.getUsername(), organizationClaim);
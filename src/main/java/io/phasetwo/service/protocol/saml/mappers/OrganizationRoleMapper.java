@@ -68,13 +68,13 @@ public class OrganizationRoleMapper extends AbstractSAMLProtocolMapper
     attribute.setFriendlyName(ORGANIZATION_ATTRIBUTE_NAME);
     attribute.setNameFormat(JBossSAMLURIConstants.ATTRIBUTE_FORMAT_BASIC.get());
 
-    orgs.getUserOrganizationsStream(realm, user)
+    orgs.getUserOrganizationRolesStream(realm, user)
         .forEach(
             o ->
-                o.getRolesByUserStream(user)
+                o.getRoleNames()
                     .forEach(
                         r -> {
-                          String orgRole = String.format("%s/%s", o.getId(), r.getName());
+                          String orgRole = String.format("%s/%s", o.getOrganizationId(), r);
                           log.debugf("added attributeValue %s", orgRole);
                           attribute.addAttributeValue(orgRole);
                         }));
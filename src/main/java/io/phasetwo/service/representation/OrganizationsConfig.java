@@ -24,6 +24,12 @@ public class OrganizationsConfig {
   @JsonProperty("scimEnabled")
   private boolean scimEnabled = false;
 
+  @JsonProperty("trustTokenOrgRolesEnabled")
+  private boolean trustTokenOrgRolesEnabled = false;
+
+  @JsonProperty("trustTokenOrgRolesMaxAgeInSecs")
+  private int trustTokenOrgRolesMaxAgeInSecs = 60;
+
   public boolean isCreateAdminUser() {
     return createAdminUser;
   }
@@ -79,4 +85,20 @@ public class OrganizationsConfig {
   public void setScimEnabled(boolean scimEnabled) {
     this.scimEnabled = scimEnabled;
   }
+
+  public boolean isTrustTokenOrgRolesEnabled() {
+    return trustTokenOrgRolesEnabled;
+  }
+
+  public void setTrustTokenOrgRolesEnabled(boolean trustTokenOrgRolesEnabled) {
+    this.trustTokenOrgRolesEnabled = trustTokenOrgRolesEnabled;
+  }
+
+  public int getTrustTokenOrgRolesMaxAgeInSecs() {
+    return trustTokenOrgRolesMaxAgeInSecs;
+  }
+
+  public void setTrustTokenOrgRolesMaxAgeInSecs(int trustTokenOrgRolesMaxAgeInSecs) {
+    this.trustTokenOrgRolesMaxAgeInSecs = trustTokenOrgRolesMaxAgeInSecs;
+  }
 }
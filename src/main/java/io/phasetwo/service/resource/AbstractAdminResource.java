@@ -73,9 +73,16 @@ public abstract class AbstractAdminResource<T extends AdminAuth> {
         .preflight()
         .checkAllowedOrigins(auth.getToken())
         .allowedMethods(CorsResource.METHODS)
-        .exposedHeaders("Location")
+        .exposedHeaders(CorsResource.HEADERS)
         .auth()
         .add();
+    // preflight mode leaves the exposed headers off of the actual response
+    if (headers.getHeaderString(Cors.ORIGIN_HEADER) != null) {
+      session
+          .getContext()
+          .getHttpResponse()
+          .setHeader(Cors.ACCESS_CONTROL_EXPOSE_HEADERS, String.join(", ", CorsResource.HEADERS));
+    }
   }
 
   private void setupAuth() {
@@ -4,6 +4,7 @@ import com.google.common.collect.Lists;
 import com.google.common.collect.Maps;
 import io.phasetwo.service.model.InvitationModel;
 import io.phasetwo.service.model.OrganizationModel;
+import io.phasetwo.service.model.OrganizationProvider;
 import io.phasetwo.service.model.OrganizationRoleModel;
 import io.phasetwo.service.model.jpa.entity.InvitationEntity;
 import io.phasetwo.service.representation.*;
@@ -11,7 +12,9 @@ import io.phasetwo.service.scim.ComponentScimConfig;
 import io.phasetwo.service.util.Argon2idEncoder;
 import java.util.List;
 import java.util.Map;
+import java.util.stream.Stream;
 import org.keycloak.component.ComponentModel;
+import org.keycloak.models.RealmModel;
 import org.keycloak.models.jpa.entities.UserEntity;
 import org.keycloak.representations.account.UserRepresentation;
 
@@ -25,6 +28,11 @@ public class Converters {
   }
 
   public static Organization convertOrganizationModelToOrganization(OrganizationModel e) {
+    return convertOrganizationModelToOrganization(e, e.getAttributes());
+  }
+
+  public static Organization convertOrganizationModelToOrganization(
+      OrganizationModel e, Map<String, List<String>> attributes) {
     Organization o =
         new Organization()
             .id(e.getId())
@@ -33,10 +41,24 @@ public class Converters {
             .domains(e.getDomains())
             .url(e.getUrl())
             .realm(e.getRealm().getName());
-    o.setAttributes(e.getAttributes());
+    o.setAttributes(attributes);
     return o;
   }
 
+  /** Converts a page of organizations, loading the attributes of all of them in one query. */
+  public static Stream<Organization> convertOrganizationModelsToOrganizations(
+      OrganizationProvider orgs, RealmModel realm, Stream<OrganizationModel> models) {
+    List<OrganizationModel> page = models.toList();
+    Map<String, Map<String, List<String>>> attributes =
+        orgs.getOrganizationsAttributes(
+            realm, page.stream().map(OrganizationModel::getId).toList());
+    return page.stream()
+        .map(
+            e ->
+                convertOrganizationModelToOrganization(
+                    e, attributes.getOrDefault(e.getId(), Maps.newHashMap())));
+  }
+
   public static UserRepresentation convertUserEntityToUserRepresentation(UserEntity e) {
     UserRepresentation r = new UserRepresentation();
     r.setEmail(e.getEmail());
@@ -11,7 +11,7 @@ public class CorsResource {
     "GET", "HEAD", "POST", "PUT", "DELETE", "PATCH", "OPTIONS"
   };
 
-  public static final String[] HEADERS = {"Location"};
+  public static final String[] HEADERS = {"Location", OrganizationAdminResource.NEXT_CURSOR_HEADER};
 
   @OPTIONS
   @Path("{any:.*}")
@@ -70,8 +70,7 @@ public class IdentityProvidersResource extends OrganizationAdminResource {
   @GET
   @Produces(MediaType.APPLICATION_JSON)
   public Stream<IdentityProviderRepresentation> getIdentityProviders() {
-    Stream<IdentityProviderModel> owned =
-        orgs.getIdentityProvidersStream(realm, ORG_OWNER_CONFIG_KEY, organization.getId(), false);
+    Stream<IdentityProviderModel> owned = organization.getIdentityProvidersStream();
 
     return owned
         .filter(provider -> canViewIdp())
@@ -127,7 +126,8 @@ public class IdentityProvidersResource extends OrganizationAdminResource {
       IdentityProviderRepresentation representation, boolean unlink, String orgId) {
     if (!unlink) return; // nothing to do
     if (representation.isEnabled()) {
-      orgs.getIdentityProvidersStream(realm, ORG_OWNER_CONFIG_KEY, organization.getId(), false)
+      organization
+          .getIdentityProvidersStream()
           .forEach(
               provider -> {
                 IdentityProviders.removeOrganization(orgId, provider);
@@ -178,6 +178,10 @@ public class IdentityProvidersResource extends OrganizationAdminResource {
 
     Response resp = getIdpResource().create(representation);
     if (resp.getStatus() == Response.Status.CREATED.getStatusCode()) {
+      // creation doesn't publish an event, unlike update and removal
+      IdentityProviders.syncOrganizationLinks(
+          session, session.identityProviders().getByAlias(representation.getAlias()));
+      orgs.invalidateDomainRoutes(realm);
       return createdResponse(representation);
     } else {
       return resp;
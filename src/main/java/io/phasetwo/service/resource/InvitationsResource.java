@@ -219,12 +219,20 @@ public class InvitationsResource extends OrganizationAdminResource {
   public Stream<Invitation> listInvitations(
       @QueryParam("search") String searchQuery,
       @QueryParam("first") Integer firstResult,
-      @QueryParam("max") Integer maxResults) {
+      @QueryParam("max") Integer maxResults,
+      @QueryParam("cursor") String cursor) {
     log.debugf("Get invitations for %s %s", realm.getName(), organization.getId());
     Optional<String> search = Optional.ofNullable(searchQuery);
     firstResult = firstResult != null ? firstResult : 0;
     maxResults = maxResults != null ? maxResults : Constants.DEFAULT_MAX_RESULTS;
 
+    if (cursor != null) {
+      return keysetPage(
+              organization.searchForInvitationsPage(
+                  searchQuery, decodeDateCursor(cursor), maxResults))
+          .map(i -> convertInvitationModelToInvitation(i));
+    }
+
     return organization
         .getInvitationsStream()
         .filter(i -> !search.isPresent() || i.getEmail().contains(search.get()))
@@ -1,12 +1,12 @@
 package io.phasetwo.service.resource;
 
-import static io.phasetwo.service.Orgs.ACTIVE_ORGANIZATION;
 import static io.phasetwo.service.resource.OrganizationResourceType.*;
 import static org.keycloak.events.EventType.UPDATE_PROFILE;
 import static org.keycloak.models.utils.ModelToRepresentation.*;
 
 import com.google.common.base.Strings;
 import io.phasetwo.service.model.OrganizationMemberModel;
+import io.phasetwo.service.model.OrganizationMemberSummary;
 import io.phasetwo.service.model.OrganizationModel;
 import io.phasetwo.service.representation.OrganizationMemberAttribute;
 import io.phasetwo.service.representation.UserWithOrgs;
@@ -15,7 +15,6 @@ import jakarta.validation.Valid;
 import jakarta.ws.rs.*;
 import jakarta.ws.rs.core.MediaType;
 import jakarta.ws.rs.core.Response;
-import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
 import java.util.stream.Stream;
@@ -24,6 +23,7 @@ import org.keycloak.events.EventBuilder;
 import org.keycloak.events.admin.OperationType;
 import org.keycloak.models.Constants;
 import org.keycloak.models.UserModel;
+import org.keycloak.representations.idm.UserRepresentation;
 
 @JBossLog
 public class MembersResource extends OrganizationAdminResource {
@@ -43,15 +43,37 @@ public class MembersResource extends OrganizationAdminResource {
       @QueryParam("first") Integer firstResult,
       @QueryParam("max") Integer maxResults,
       @QueryParam("includeOrgs") Boolean includeOrgs,
-      @QueryParam("excludeAdminAccounts") Boolean excludeAdminAccounts) {
+      @QueryParam("excludeAdminAccounts") Boolean excludeAdminAccounts,
+      @QueryParam("briefRepresentation") Boolean briefRepresentation,
+      @QueryParam("cursor") String cursor) {
     log.debugf("Get members for %s %s [%s]", realm.getName(), organization.getId(), searchQuery);
     boolean excludeAdmin = excludeAdminAccounts != null && excludeAdminAccounts;
     firstResult = firstResult != null ? firstResult : 0;
     maxResults = maxResults != null ? maxResults : Constants.DEFAULT_MAX_RESULTS;
     boolean addOrgs = includeOrgs != null && includeOrgs;
 
-    return organization
-        .searchForMembersStream(searchQuery, firstResult, maxResults, excludeAdmin)
+    // one query for the page, without loading each user and its attributes
+    if (briefRepresentation != null && briefRepresentation && !addOrgs) {
+      return (cursor != null
+              ? keysetPage(
+                  orgs.searchForMemberSummariesPage(
+                      realm,
+                      organization.getId(),
+                      searchQuery,
+                      decodeDateCursor(cursor),
+                      maxResults,
+                      excludeAdmin))
+              : orgs.searchForMemberSummariesStream(
+                  realm, organization.getId(), searchQuery, firstResult, maxResults, excludeAdmin))
+          .map(MembersResource::toUserWithOrgs);
+    }
+
+    return (cursor != null
+            ? keysetPage(
+                organization.searchForMembersPage(
+                    searchQuery, decodeDateCursor(cursor), maxResults, excludeAdmin))
+            : organization.searchForMembersStream(
+                searchQuery, firstResult, maxResults, excludeAdmin))
         .map(
             userModel -> {
               UserWithOrgs u = new UserWithOrgs(toBriefRepresentation(userModel));
@@ -67,6 +89,19 @@ public class MembersResource extends OrganizationAdminResource {
             });
   }
 
+  private static UserWithOrgs toUserWithOrgs(OrganizationMemberSummary member) {
+    UserRepresentation user = new UserRepresentation();
+    user.setId(member.getId());
+    user.setUsername(member.getUsername());
+    user.setEmail(member.getEmail());
+    user.setEmailVerified(member.isEmailVerified());
+    user.setFirstName(member.getFirstName());
+    user.setLastName(member.getLastName());
+    user.setEnabled(member.isEnabled());
+    user.setCreatedTimestamp(member.getCreatedTimestamp());
+    return new UserWithOrgs(user);
+  }
+
   @PUT
   @Path("{userId}/attributes")
   @Produces(MediaType.APPLICATION_JSON)
@@ -153,7 +188,7 @@ public class MembersResource extends OrganizationAdminResource {
         ActiveOrganization.fromContext(session, realm, member);
     if (activeOrganizationUtil.isValid()
         && activeOrganizationUtil.isCurrentActiveOrganization(organization.getId())) {
-      member.setAttribute(ACTIVE_ORGANIZATION, new ArrayList<>());
+      ActiveOrganization.setActiveOrganizationId(session, realm, member, null);
 
       EventBuilder event = new EventBuilder(realm, session, connection);
       event
@@ -165,6 +200,7 @@ public class MembersResource extends OrganizationAdminResource {
     }
 
     organization.revokeMembership(member);
+    ActiveOrganization.invalidate(session, realm, member);
     adminEvent
         .resource(ORGANIZATION_MEMBERSHIP.name())
         .operation(OperationType.DELETE)
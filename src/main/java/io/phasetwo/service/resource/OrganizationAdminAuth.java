@@ -1,5 +1,9 @@
 package io.phasetwo.service.resource;
 
+import static io.phasetwo.service.Orgs.ORG_CONFIG_TRUST_TOKEN_ORG_ROLES_ENABLED_KEY;
+import static io.phasetwo.service.Orgs.ORG_CONFIG_TRUST_TOKEN_ORG_ROLES_MAX_AGE_DEFAULT;
+import static io.phasetwo.service.Orgs.ORG_CONFIG_TRUST_TOKEN_ORG_ROLES_MAX_AGE_KEY;
+
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableMap;
 import io.phasetwo.service.model.InvitationModel;
@@ -9,9 +13,13 @@ import io.phasetwo.service.model.jpa.entity.ExtOrganizationEntity;
 import io.phasetwo.service.model.jpa.entity.InvitationEntity;
 import io.phasetwo.service.model.jpa.entity.OrganizationMemberEntity;
 import jakarta.ws.rs.NotAuthorizedException;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
 import lombok.extern.jbosslog.JBossLog;
+import org.keycloak.common.util.Time;
 import org.keycloak.models.AdminRoles;
 import org.keycloak.models.ClientModel;
 import org.keycloak.models.RealmModel;
@@ -29,6 +37,9 @@ public class OrganizationAdminAuth extends AdminAuth {
   public static final String ROLE_VIEW_ORGANIZATION = "view-organizations";
   public static final String ROLE_MANAGE_ORGANIZATION = "manage-organizations";
 
+  private final Map<String, Set<String>> orgRoleNames = new HashMap<>();
+  private Boolean tokenOrgRolesTrusted;
+
   public OrganizationAdminAuth(
       RealmModel realm, AccessToken token, UserModel user, ClientModel client) {
     super(realm, token, user, client);
@@ -231,7 +242,7 @@ public class OrganizationAdminAuth extends AdminAuth {
    *     or they are a member of the organization.
    */
   boolean hasOrgViewOrg(OrganizationModel org) {
-    return hasOrgRole(org, ORG_ROLE_VIEW_ORGANIZATION) || org.hasMembership(getUser());
+    return hasOrgRole(org, ORG_ROLE_VIEW_ORGANIZATION) || isOrgMember(org);
   }
 
   /**
@@ -357,6 +368,46 @@ public class OrganizationAdminAuth extends AdminAuth {
 
   static String ORGANIZATIONS_CLAIM = "organizations";
 
+  private boolean isOrgInToken(OrganizationModel org) {
+    Object o = getToken().getOtherClaims().get(ORGANIZATIONS_CLAIM);
+    return o instanceof Map && ((Map<String, Object>) o).containsKey(org.getId());
+  }
+
+  /**
+   * Whether the token's organizations claim may answer org-scoped checks: the realm has the trust
+   * token org roles config enabled, the claim is present, and the token was issued within the
+   * configured max age.
+   */
+  private boolean isTokenOrgRolesTrusted() {
+    if (tokenOrgRolesTrusted == null) {
+      tokenOrgRolesTrusted = false;
+      if (getRealm().getAttribute(ORG_CONFIG_TRUST_TOKEN_ORG_ROLES_ENABLED_KEY, false)
+          && getToken().getOtherClaims().get(ORGANIZATIONS_CLAIM) instanceof Map
+          && getToken().getIat() != null) {
+        int maxAge =
+            getRealm()
+                .getAttribute(
+                    ORG_CONFIG_TRUST_TOKEN_ORG_ROLES_MAX_AGE_KEY,
+                    ORG_CONFIG_TRUST_TOKEN_ORG_ROLES_MAX_AGE_DEFAULT);
+        tokenOrgRolesTrusted = Time.currentTime() - getToken().getIat() <= maxAge;
+      }
+      log.debugf("Trust org roles in token for %s? %b", getUser().getId(), tokenOrgRolesTrusted);
+    }
+    return tokenOrgRolesTrusted;
+  }
+
+  /**
+   * Whether the check for the organization is answered from the token. Organizations missing from
+   * a trusted claim, such as one created after the token was issued, go to the database.
+   */
+  private boolean isOrgAnsweredFromToken(OrganizationModel org) {
+    return isTokenOrgRolesTrusted() && isOrgInToken(org);
+  }
+
+  private boolean isOrgMember(OrganizationModel org) {
+    return isOrgAnsweredFromToken(org) || org.hasMembership(getUser());
+  }
+
   private List<String> getOrganizationRoles(OrganizationModel org) {
     Object o = getToken().getOtherClaims().get(ORGANIZATIONS_CLAIM);
     if (o == null || !(o instanceof Map)) return ImmutableList.of();
@@ -369,23 +420,28 @@ public class OrganizationAdminAuth extends AdminAuth {
     return (List<String>) rs;
   }
 
-  private boolean hasOrgRoleInToken(OrganizationModel org, String roleName) {
-    return (getOrganizationRoles(org).contains(roleName));
-  }
-
   private boolean hasOrgRole(OrganizationModel org, String roleName) {
-    /*
-    if (!hasOrgRoleInToken(org, roleName)) {
-      log.debugf("%s not in token %s", roleName, getToken().getOtherClaims());
-      return false;
-    }
-    */
-    OrganizationRoleModel role = org.getRoleByName(roleName);
-    boolean has = (role != null && role.hasRole(getUser()));
+    boolean has = getOrgRoleNames(org).contains(roleName);
     log.debugf("%s has role %s? %b", getUser().getId(), roleName, has);
     return has;
   }
 
+  /**
+   * Role names the logged-in user holds in the organization. They are read from the token when it
+   * is trusted and names the organization, or else loaded with a single query the first time an
+   * organization is checked, and reused for every later check in this request.
+   */
+  private Set<String> getOrgRoleNames(OrganizationModel org) {
+    return orgRoleNames.computeIfAbsent(
+        org.getId(),
+        id ->
+            isOrgAnsweredFromToken(org)
+                ? Set.copyOf(getOrganizationRoles(org))
+                : org.getRolesByUserStream(getUser())
+                    .map(OrganizationRoleModel::getName)
+                    .collect(Collectors.toUnmodifiableSet()));
+  }
+
   private void requireOrgRole(OrganizationModel org, String roleName) {
     if (!hasOrgRole(org, roleName)) {
       throw new NotAuthorizedException(
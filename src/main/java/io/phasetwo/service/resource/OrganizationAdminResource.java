@@ -1,9 +1,14 @@
 package io.phasetwo.service.resource;
 
+import io.phasetwo.service.model.KeysetPage;
 import io.phasetwo.service.model.OrganizationProvider;
+import io.phasetwo.service.model.OrganizationSearchMode;
+import io.phasetwo.service.model.PageCursor;
 import jakarta.persistence.EntityManager;
+import jakarta.ws.rs.BadRequestException;
 import java.net.URI;
 import java.net.URISyntaxException;
+import java.util.stream.Stream;
 import lombok.extern.jbosslog.JBossLog;
 import org.keycloak.connections.jpa.JpaConnectionProvider;
 import org.keycloak.models.KeycloakSession;
@@ -12,6 +17,9 @@ import org.keycloak.models.KeycloakSession;
 @JBossLog
 public class OrganizationAdminResource extends AbstractAdminResource<OrganizationAdminAuth> {
 
+  /** Response header with the {@code cursor} of the following page of a keyset paged listing. */
+  public static final String NEXT_CURSOR_HEADER = "X-Next-Cursor";
+
   protected OrganizationProvider orgs;
   protected EntityManager em;
 
@@ -34,6 +42,50 @@ public class OrganizationAdminResource extends AbstractAdminResource<Organizatio
     }
   }
 
+  /** Cursor of a keyset page request. An empty {@code cursor} asks for the first page. */
+  protected static PageCursor decodeCursor(String cursor) {
+    if (cursor.isEmpty()) return null;
+    try {
+      return PageCursor.decode(cursor);
+    } catch (IllegalArgumentException e) {
+      throw new BadRequestException("Invalid cursor");
+    }
+  }
+
+  /**
+   * Cursor of a keyset page request over a timestamp ordering. A cursor with another kind of key,
+   * such as one from the organizations listing, is a bad request.
+   */
+  protected static PageCursor decodeDateCursor(String cursor) {
+    PageCursor after = decodeCursor(cursor);
+    if (after == null) return null;
+    try {
+      after.getKeyAsDate();
+    } catch (IllegalArgumentException e) {
+      throw new BadRequestException("Invalid cursor");
+    }
+    return after;
+  }
+
+  /** Search mode of a {@code searchMode} query parameter, {@code contains} if absent. */
+  protected static OrganizationSearchMode searchMode(String searchMode) {
+    try {
+      return OrganizationSearchMode.fromString(searchMode);
+    } catch (IllegalArgumentException e) {
+      throw new BadRequestException("Invalid searchMode");
+    }
+  }
+
+  /**
+   * Items of a keyset page, with the cursor of the following page in {@link #NEXT_CURSOR_HEADER}.
+   */
+  protected final <T> Stream<T> keysetPage(KeysetPage<T> page) {
+    if (page.getNext() != null) {
+      session.getContext().getHttpResponse().setHeader(NEXT_CURSOR_HEADER, page.getNext().encode());
+    }
+    return page.getItems().stream();
+  }
+
   protected final void init() {
     this.em = session.getProvider(JpaConnectionProvider.class).getEntityManager();
     this.orgs = session.getProvider(OrganizationProvider.class);
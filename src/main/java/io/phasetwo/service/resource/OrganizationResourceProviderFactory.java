@@ -3,6 +3,7 @@ package io.phasetwo.service.resource;
 import static io.phasetwo.service.Orgs.KC_ORGS_MIGRATION_BATCH_SIZE;
 import static io.phasetwo.service.Orgs.KC_ORGS_SKIP_MIGRATION;
 import static io.phasetwo.service.Orgs.ORG_CONFIG_CREATE_ADMIN_USER_KEY;
+import static io.phasetwo.service.Orgs.ORG_OWNER_CONFIG_KEY;
 import static io.phasetwo.service.resource.OrganizationAdminAuth.DEFAULT_ORG_ROLES;
 import static io.phasetwo.service.resource.OrganizationAdminAuth.DEFAULT_ORG_ROLES_DESC;
 import static io.phasetwo.service.resource.OrganizationAdminAuth.ORG_ROLE_DELETE_ORGANIZATION;
@@ -16,9 +17,14 @@ import io.phasetwo.service.model.OrganizationModel;
 import io.phasetwo.service.model.OrganizationProvider;
 import io.phasetwo.service.model.OrganizationRoleModel;
 import io.phasetwo.service.util.IdentityProviders;
+import jakarta.persistence.EntityManager;
+import java.util.List;
 import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.TimeUnit;
 import lombok.extern.jbosslog.JBossLog;
 import org.keycloak.Config;
+import org.keycloak.connections.jpa.JpaConnectionProvider;
 import org.keycloak.models.AdminRoles;
 import org.keycloak.models.ClientModel;
 import org.keycloak.models.KeycloakSession;
@@ -26,11 +32,15 @@ import org.keycloak.models.KeycloakSessionFactory;
 import org.keycloak.models.RealmModel;
 import org.keycloak.models.RoleModel;
 import org.keycloak.models.UserModel;
+import org.keycloak.models.jpa.entities.IdentityProviderEntity;
 import org.keycloak.models.utils.KeycloakModelUtils;
 import org.keycloak.models.utils.PostMigrationEvent;
 import org.keycloak.provider.ProviderEvent;
 import org.keycloak.services.managers.RealmManager;
 import org.keycloak.services.resource.RealmResourceProviderFactory;
+import org.keycloak.services.scheduled.ClusterAwareScheduledTaskRunner;
+import org.keycloak.timer.ScheduledTask;
+import org.keycloak.timer.TimerProvider;
 
 /** */
 @JBossLog
@@ -39,6 +49,11 @@ public class OrganizationResourceProviderFactory implements RealmResourceProvide
 
   public static final String ID = "orgs";
 
+  /** Cluster task that links the IdPs created outside of the organization APIs. */
+  public static final String IDP_LINKS_TASK = "organization-identity-provider-links";
+
+  private long idpLinksIntervalInSecs;
+
   @Override
   public String getId() {
     return ID;
@@ -54,7 +69,9 @@ public class OrganizationResourceProviderFactory implements RealmResourceProvide
   }
 
   @Override
-  public void init(Config.Scope config) {}
+  public void init(Config.Scope config) {
+    idpLinksIntervalInSecs = config.getLong("idpLinksIntervalInSecs", 900L);
+  }
 
   @Override
   public void postInit(KeycloakSessionFactory factory) {
@@ -73,6 +90,8 @@ public class OrganizationResourceProviderFactory implements RealmResourceProvide
               KeycloakModelUtils.runJobInTransaction(factory, this::initRoles);
               migrateOrganizationWithNewDefaultRolesBatched(factory, ORG_ROLE_DELETE_ORGANIZATION);
             }
+            // idempotent, and organization IdPs are only read through the links
+            scheduleIdentityProviderLinks(factory);
           } else if (event instanceof RealmModel.RealmRemovedEvent) {
             log.debug("RealmRemovedEvent");
             realmRemoved((RealmModel.RealmRemovedEvent) event);
@@ -85,6 +104,24 @@ public class OrganizationResourceProviderFactory implements RealmResourceProvide
           } else if (event instanceof OrganizationModel.OrganizationRemovedEvent) {
             log.debug("OrganizationRemovedEvent");
             organizationRemoved((OrganizationModel.OrganizationRemovedEvent) event);
+          } else if (event instanceof RealmModel.IdentityProviderUpdatedEvent) {
+            log.debug("IdentityProviderUpdatedEvent");
+            RealmModel.IdentityProviderUpdatedEvent e =
+                (RealmModel.IdentityProviderUpdatedEvent) event;
+            IdentityProviders.syncOrganizationLinks(
+                e.getKeycloakSession(), e.getUpdatedIdentityProvider());
+            e.getKeycloakSession()
+                .getProvider(OrganizationProvider.class)
+                .invalidateDomainRoutes(e.getRealm());
+          } else if (event instanceof RealmModel.IdentityProviderRemovedEvent) {
+            log.debug("IdentityProviderRemovedEvent");
+            RealmModel.IdentityProviderRemovedEvent e =
+                (RealmModel.IdentityProviderRemovedEvent) event;
+            IdentityProviders.removeOrganizationLinks(
+                e.getKeycloakSession(), e.getRemovedIdentityProvider().getInternalId());
+            e.getKeycloakSession()
+                .getProvider(OrganizationProvider.class)
+                .invalidateDomainRoutes(e.getRealm());
           }
         });
   }
@@ -115,6 +152,57 @@ public class OrganizationResourceProviderFactory implements RealmResourceProvide
             });
   }
 
+  /**
+   * Links the IdPs without link rows now and then every {@code idpLinksIntervalInSecs}, on one node
+   * of the cluster at a time. Keycloak publishes no event when an IdP is created through its own
+   * admin API or a realm import, so this is how those IdPs get their links.
+   */
+  private void scheduleIdentityProviderLinks(KeycloakSessionFactory factory) {
+    long intervalMillis = TimeUnit.SECONDS.toMillis(idpLinksIntervalInSecs);
+    ClusterAwareScheduledTaskRunner runner =
+        new ClusterAwareScheduledTaskRunner(
+            factory, new IdentityProviderLinksTask(), intervalMillis);
+    runner.run();
+    KeycloakModelUtils.runJobInTransaction(
+        factory,
+        session ->
+            session
+                .getProvider(TimerProvider.class)
+                .schedule(runner, intervalMillis, IDP_LINKS_TASK));
+  }
+
+  /** Links the IdPs that have an owner organization in their config but no link rows. */
+  static class IdentityProviderLinksTask implements ScheduledTask {
+
+    @Override
+    public void run(KeycloakSession session) {
+      log.debug("OrganizationResourceProviderFactory::linkIdentityProviders");
+      EntityManager em = session.getProvider(JpaConnectionProvider.class).getEntityManager();
+      List<IdentityProviderEntity> idps =
+          em.createNamedQuery(
+                  "getIdentityProvidersWithoutOrganizationLinks", IdentityProviderEntity.class)
+              .setParameter("configKey", ORG_OWNER_CONFIG_KEY)
+              .getResultList();
+      idps.forEach(
+          e ->
+              IdentityProviders.syncOrganizationLinks(
+                  session, IdentityProviders.toModel(e, session)));
+      OrganizationProvider orgs = session.getProvider(OrganizationProvider.class);
+      idps.stream()
+          .map(IdentityProviderEntity::getRealmId)
+          .distinct()
+          .map(session.realms()::getRealm)
+          .filter(Objects::nonNull)
+          .forEach(orgs::invalidateDomainRoutes);
+      log.debugf("Identity provider links synced: %d idp(s) without links", idps.size());
+    }
+
+    @Override
+    public String getTaskName() {
+      return IDP_LINKS_TASK;
+    }
+  }
+
   private void migrateOrganizationWithNewDefaultRolesBatched(
       KeycloakSessionFactory factory, String roleName) {
     KeycloakModelUtils.runJobInTransaction(
@@ -246,7 +334,7 @@ public class OrganizationResourceProviderFactory implements RealmResourceProvide
       user.setEmailVerified(true);
       user.setFirstName(getDisplayName(org));
       user.setLastName("Org Admin User");
-      org.grantMembership(user);
+      org.grantMembership(user, true);
       for (String role : DEFAULT_ORG_ROLES) {
         OrganizationRoleModel roleModel = org.getRoleByName(role);
         roleModel.grantRole(user);
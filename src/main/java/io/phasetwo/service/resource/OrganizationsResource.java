@@ -13,7 +13,8 @@ import io.phasetwo.service.importexport.representation.KeycloakOrgsRepresentatio
 import io.phasetwo.service.importexport.representation.OrganizationRepresentation;
 import io.phasetwo.service.model.OrganizationModel;
 import io.phasetwo.service.model.OrganizationProvider;
-import io.phasetwo.service.model.OrganizationRoleModel;
+import io.phasetwo.service.model.OrganizationSearchMode;
+import io.phasetwo.service.model.UserOrganizationRoles;
 import io.phasetwo.service.representation.Invitation;
 import io.phasetwo.service.representation.Organization;
 import io.phasetwo.service.representation.OrganizationsConfig;
@@ -62,19 +63,22 @@ public class OrganizationsResource extends OrganizationAdminResource {
   @Produces(MediaType.APPLICATION_JSON)
   public Response me() {
     Map<String, Object> claim = Maps.newHashMap();
-    orgs.getUserOrganizationsStream(realm, user)
-        .forEach(
-            o -> {
-              List<String> roles =
-                  o.getRolesByUserStream(user).map(OrganizationRoleModel::getName).toList();
-              Map<String, Object> org = Maps.newHashMap();
-              org.put("name", o.getName());
-              if (o.getDisplayName() != null) org.put("displayName", o.getDisplayName());
-              if (o.getUrl() != null) org.put("url", o.getUrl());
-              org.put("attributes", o.getAttributes());
-              org.put("roles", roles);
-              claim.put(o.getId(), org);
-            });
+    List<UserOrganizationRoles> memberships =
+        orgs.getUserOrganizationRolesStream(realm, user).toList();
+    Map<String, Map<String, List<String>>> attributes =
+        orgs.getOrganizationsAttributes(
+            realm, memberships.stream().map(UserOrganizationRoles::getOrganizationId).toList());
+    memberships.forEach(
+        m -> {
+          Map<String, Object> org = Maps.newHashMap();
+          org.put("name", m.getOrganizationName());
+          if (m.getOrganizationDisplayName() != null)
+            org.put("displayName", m.getOrganizationDisplayName());
+          if (m.getOrganizationUrl() != null) org.put("url", m.getOrganizationUrl());
+          org.put("attributes", attributes.getOrDefault(m.getOrganizationId(), Map.of()));
+          org.put("roles", m.getRoleNames());
+          claim.put(m.getOrganizationId(), org);
+        });
     return Response.ok(claim).build();
   }
 
@@ -175,7 +179,10 @@ public class OrganizationsResource extends OrganizationAdminResource {
       @QueryParam("search") String search,
       @QueryParam("first") Integer firstResult,
       @QueryParam("max") Integer maxResults,
-      @QueryParam("q") String searchQuery) {
+      @QueryParam("q") String searchQuery,
+      @QueryParam("searchMode") String searchMode,
+      @QueryParam("cursor") String cursor) {
+    OrganizationSearchMode mode = searchMode(searchMode);
     firstResult = firstResult != null ? firstResult : 0;
     maxResults =
         (maxResults != null && maxResults <= Constants.DEFAULT_MAX_RESULTS)
@@ -192,21 +199,27 @@ public class OrganizationsResource extends OrganizationAdminResource {
       searchAttributes.put("name", search.trim());
     }
 
-    return orgs.searchForOrganizationStream(
-            realm,
-            searchAttributes,
-            firstResult,
-            maxResults,
-            auth.hasViewOrgs() ? Optional.empty() : Optional.of(auth.getUser()))
-        .filter(m -> (auth.hasViewOrgs() || auth.hasOrgViewOrg(m)))
-        .map(Converters::convertOrganizationModelToOrganization);
+    Optional<UserModel> member =
+        auth.hasViewOrgs() ? Optional.empty() : Optional.of(auth.getUser());
+    Stream<OrganizationModel> page =
+        cursor != null
+            ? keysetPage(
+                orgs.searchForOrganizationPage(
+                    realm, searchAttributes, mode, decodeCursor(cursor), maxResults, member))
+            : orgs.searchForOrganizationStream(
+                realm, searchAttributes, mode, firstResult, maxResults, member);
+    return Converters.convertOrganizationModelsToOrganizations(
+        orgs, realm, page.filter(m -> (auth.hasViewOrgs() || auth.hasOrgViewOrg(m))));
   }
 
   @GET
   @Path("count")
   @Produces(MediaType.APPLICATION_JSON)
   public Long countOrgs(
-      @QueryParam("search") String searchQuery, @QueryParam("q") String searchAttributes) {
+      @QueryParam("search") String searchQuery,
+      @QueryParam("q") String searchAttributes,
+      @QueryParam("searchMode") String searchMode) {
+    OrganizationSearchMode mode = searchMode(searchMode);
 
     log.debugf(
         "countOrgs realm: %s, search: %s, query: %s",
@@ -225,7 +238,8 @@ public class OrganizationsResource extends OrganizationAdminResource {
       attributes.put("name", searchQuery.trim());
     }
 
-    return orgs.getOrganizationsCount(realm, searchQuery, attributes);
+    // the search is a name attribute, matched against the display name too like in listOrgs
+    return orgs.getOrganizationsCount(realm, null, attributes, mode);
   }
 
   @POST
@@ -284,6 +298,10 @@ public class OrganizationsResource extends OrganizationAdminResource {
     realm.setAttribute(ORG_CONFIG_PORTAL_LINK_EXPIRATION_KEY, body.getExpirationInSecs());
     realm.setAttribute(ORG_CONFIG_DEFAULT_APPLICATION_URI, body.getDefaultApplicationUri());
     realm.setAttribute(ORG_CONFIG_SCIM_ENABLED_KEY, body.isScimEnabled());
+    realm.setAttribute(
+        ORG_CONFIG_TRUST_TOKEN_ORG_ROLES_ENABLED_KEY, body.isTrustTokenOrgRolesEnabled());
+    realm.setAttribute(
+        ORG_CONFIG_TRUST_TOKEN_ORG_ROLES_MAX_AGE_KEY, body.getTrustTokenOrgRolesMaxAgeInSecs());
 
     return Response.ok(body).build();
   }
@@ -321,6 +339,12 @@ public class OrganizationsResource extends OrganizationAdminResource {
     representation.setExpirationInSecs(
         realm.getAttribute(ORG_CONFIG_PORTAL_LINK_EXPIRATION_KEY, 86400));
     representation.setScimEnabled(realm.getAttribute(ORG_CONFIG_SCIM_ENABLED_KEY, false));
+    representation.setTrustTokenOrgRolesEnabled(
+        realm.getAttribute(ORG_CONFIG_TRUST_TOKEN_ORG_ROLES_ENABLED_KEY, false));
+    representation.setTrustTokenOrgRolesMaxAgeInSecs(
+        realm.getAttribute(
+            ORG_CONFIG_TRUST_TOKEN_ORG_ROLES_MAX_AGE_KEY,
+            ORG_CONFIG_TRUST_TOKEN_ORG_ROLES_MAX_AGE_DEFAULT));
 
     return Response.ok(representation).build();
   }
@@ -19,7 +19,6 @@ import jakarta.ws.rs.*;
 import jakarta.ws.rs.core.MediaType;
 import jakarta.ws.rs.core.Response;
 import java.util.ArrayList;
-import java.util.Collections;
 import java.util.List;
 import java.util.stream.Stream;
 import lombok.extern.jbosslog.JBossLog;
@@ -51,9 +50,11 @@ public class UserResource extends OrganizationAdminResource {
       throw new NotFoundException(String.format("User with id %s not found", userId));
     }
 
-    return orgs.getUserOrganizationsStream(realm, user)
-        .filter(m -> (auth.hasViewOrgs() || auth.hasOrgViewOrg(m)))
-        .map(Converters::convertOrganizationModelToOrganization);
+    return Converters.convertOrganizationModelsToOrganizations(
+        orgs,
+        realm,
+        orgs.getUserOrganizationsStream(realm, user)
+            .filter(m -> (auth.hasViewOrgs() || auth.hasOrgViewOrg(m))));
   }
 
   @GET
@@ -122,7 +123,7 @@ public class UserResource extends OrganizationAdminResource {
 
     // attribute based active organization
     var currentActiveOrganization = user.getFirstAttribute(ACTIVE_ORGANIZATION);
-    user.setAttribute(ACTIVE_ORGANIZATION, Collections.singletonList(body.getId()));
+    ActiveOrganization.setActiveOrganizationId(session, realm, user, body.getId());
     TokenManager tokenManager = new TokenManager(session, auth.getToken(), realm, user);
     EventBuilder event = new EventBuilder(realm, session, connection);
 
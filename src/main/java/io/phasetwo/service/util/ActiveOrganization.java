@@ -4,38 +4,83 @@ import static io.phasetwo.service.Orgs.ACTIVE_ORGANIZATION;
 
 import io.phasetwo.service.model.OrganizationModel;
 import io.phasetwo.service.model.OrganizationProvider;
-import io.phasetwo.service.model.OrganizationRoleModel;
+import io.phasetwo.service.model.UserOrganizationRoles;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
-import java.util.stream.Stream;
+import java.util.Objects;
 import lombok.Getter;
 import org.jboss.logging.Logger;
 import org.keycloak.models.KeycloakSession;
 import org.keycloak.models.RealmModel;
 import org.keycloak.models.UserModel;
 
+/**
+ * Resolves the user's active organization and the roles they hold in it. The result is memoized on
+ * the {@link KeycloakSession} for the lifetime of the request, so that several mappers or resources
+ * resolving it for the same user only load the memberships once. Writes to {@code
+ * ACTIVE_ORGANIZATION} should go through {@link #setActiveOrganizationId} so that the memoized value
+ * is dropped.
+ */
 public class ActiveOrganization {
 
   private static final Logger log = Logger.getLogger(ActiveOrganization.class);
   private final RealmModel realm;
   private final UserModel user;
   private final OrganizationProvider organizationProvider;
+  // the user's memberships and roles, loaded once and used for every check below
+  private final List<UserOrganizationRoles> memberships;
+  private final UserOrganizationRoles activeMembership;
   @Getter() private final OrganizationModel organization;
+  // value of the attribute this resolution was made against
+  private final String activeOrganizationId;
 
   public static ActiveOrganization fromContext(
       KeycloakSession session, RealmModel realm, UserModel user) {
-    return new ActiveOrganization(session, realm, user);
+    String key = sessionKey(realm, user);
+    ActiveOrganization active = session.getAttribute(key, ActiveOrganization.class);
+    if (active == null
+        || !Objects.equals(
+            active.activeOrganizationId, user.getFirstAttribute(ACTIVE_ORGANIZATION))) {
+      active = new ActiveOrganization(session, realm, user);
+      session.setAttribute(key, active);
+    }
+    return active;
+  }
+
+  /**
+   * Sets the user's active organization, or clears it when {@code organizationId} is null, and
+   * drops the resolution memoized for this session.
+   */
+  public static void setActiveOrganizationId(
+      KeycloakSession session, RealmModel realm, UserModel user, String organizationId) {
+    user.setAttribute(
+        ACTIVE_ORGANIZATION,
+        organizationId == null ? new ArrayList<>() : Collections.singletonList(organizationId));
+    invalidate(session, realm, user);
+  }
+
+  /** Drops the resolution memoized for this session, e.g. after a membership change. */
+  public static void invalidate(KeycloakSession session, RealmModel realm, UserModel user) {
+    session.removeAttribute(sessionKey(realm, user));
+  }
+
+  private static String sessionKey(RealmModel realm, UserModel user) {
+    return ActiveOrganization.class.getName() + "." + realm.getId() + "." + user.getId();
   }
 
   private ActiveOrganization(KeycloakSession session, RealmModel realm, UserModel user) {
     this.realm = realm;
     this.user = user;
     this.organizationProvider = session.getProvider(OrganizationProvider.class);
+    this.memberships = organizationProvider.getUserOrganizationRolesStream(realm, user).toList();
     this.organization =
         userHasActiveOrganizationAttribute()
             ? initializeActiveOrganization()
             : initializeDefaultActiveOrganization();
+    this.activeMembership = organization == null ? null : getMembership(organization.getId());
     clearOutdatedActiveOrganizationAttribute();
+    this.activeOrganizationId = getActiveOrganizationIdFromAttribute();
   }
 
   private boolean userHasActiveOrganizationAttribute() {
@@ -47,24 +92,31 @@ public class ActiveOrganization {
   }
 
   private OrganizationModel initializeDefaultActiveOrganization() {
-    Stream<OrganizationModel> userOrganizations =
-        organizationProvider.getUserOrganizationsStream(realm, user);
-    return userOrganizations.findFirst().orElse(null);
+    return memberships.stream()
+        .findFirst()
+        .map(m -> organizationProvider.getOrganizationById(realm, m.getOrganizationId()))
+        .orElse(null);
   }
 
   private void clearOutdatedActiveOrganizationAttribute() {
-    if (!userHasOrganization() && userHasActiveOrganizationAttribute()) {
-      user.setAttribute(ACTIVE_ORGANIZATION, new ArrayList<>());
-    } else if (organizationProvider
-        .getUserOrganizationsStream(realm, user)
-        .noneMatch(org -> org.getId().equals(getActiveOrganizationIdFromAttribute()))) {
-      log.warnf("%s doesn't belong to this organization", user.getUsername());
+    if (userHasActiveOrganizationAttribute()
+        && getMembership(getActiveOrganizationIdFromAttribute()) == null) {
+      if (userHasOrganization()) {
+        log.warnf("%s doesn't belong to this organization", user.getUsername());
+      }
       user.setAttribute(ACTIVE_ORGANIZATION, new ArrayList<>());
     }
   }
 
+  private UserOrganizationRoles getMembership(String organizationId) {
+    return memberships.stream()
+        .filter(m -> m.getOrganizationId().equals(organizationId))
+        .findFirst()
+        .orElse(null);
+  }
+
   public boolean userHasOrganization() {
-    return organizationProvider.getUserOrganizationsStream(realm, user).findFirst().isPresent();
+    return !memberships.isEmpty();
   }
 
   private String getActiveOrganizationIdFromAttribute() {
@@ -72,7 +124,12 @@ public class ActiveOrganization {
   }
 
   public List<String> getUserActiveOrganizationRoles() {
-    return organization.getRolesByUserStream(user).map(OrganizationRoleModel::getName).toList();
+    return activeMembership == null ? List.of() : activeMembership.getRoleNames();
+  }
+
+  /** Whether the user is a member of the resolved active organization. */
+  public boolean hasActiveMembership() {
+    return activeMembership != null;
   }
 
   public boolean isCurrentActiveOrganization(String organizationId) {
@@ -1,33 +1,38 @@
 package io.phasetwo.service.util;
 
 import static io.phasetwo.service.Orgs.ORG_CONFIG_MULTIPLE_IDPS_KEY;
+import static io.phasetwo.service.Orgs.ORG_DOMAIN_CONFIG_KEY;
 import static io.phasetwo.service.Orgs.ORG_OWNER_CONFIG_KEY;
 import static io.phasetwo.service.Orgs.ORG_SHARED_IDP_KEY;
 
+import com.google.common.base.Splitter;
+import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.Iterables;
 import io.phasetwo.service.model.OrganizationModel;
+import io.phasetwo.service.model.jpa.IdentityProviderConfigDialect;
+import io.phasetwo.service.model.jpa.entity.ExtOrganizationEntity;
+import io.phasetwo.service.model.jpa.entity.OrganizationIdentityProviderEntity;
 import jakarta.persistence.EntityManager;
-import jakarta.persistence.TypedQuery;
-import jakarta.persistence.criteria.CriteriaBuilder;
-import jakarta.persistence.criteria.CriteriaQuery;
-import jakarta.persistence.criteria.MapJoin;
-import jakarta.persistence.criteria.Predicate;
-import jakarta.persistence.criteria.Root;
 import java.util.*;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
-import org.hibernate.Session;
 import org.keycloak.broker.provider.IdentityProvider;
 import org.keycloak.broker.provider.IdentityProviderFactory;
 import org.keycloak.broker.social.SocialIdentityProvider;
+import org.keycloak.connections.jpa.JpaConnectionProvider;
 import org.keycloak.models.Constants;
 import org.keycloak.models.IdentityProviderModel;
 import org.keycloak.models.KeycloakSession;
 import org.keycloak.models.RealmModel;
 import org.keycloak.models.jpa.entities.IdentityProviderEntity;
+import org.keycloak.models.utils.KeycloakModelUtils;
 import org.keycloak.representations.idm.IdentityProviderRepresentation;
 
 public final class IdentityProviders {
 
+  private static final Splitter STR_LIST_SPLITTER =
+      Splitter.on(Constants.CFG_DELIMITER).trimResults().omitEmptyStrings();
+
   private IdentityProviders() {}
 
   public static Set<String> getAttributeMultivalued(Map<String, String> config, String attrKey) {
@@ -133,42 +138,77 @@ public final class IdentityProviders {
   public static Stream<IdentityProviderModel> getIdentityProvidersStream(
       KeycloakSession session,
       EntityManager em,
+      IdentityProviderConfigDialect dialect,
       RealmModel realm,
       String configKey,
       String configValue,
       boolean exact) {
-    CriteriaBuilder builder = em.getCriteriaBuilder();
-    CriteriaQuery<IdentityProviderEntity> query = builder.createQuery(IdentityProviderEntity.class);
-    Root<IdentityProviderEntity> idp = query.from(IdentityProviderEntity.class);
-    List<Predicate> predicates = new ArrayList<>();
-    predicates.add(builder.equal(idp.get("realmId"), realm.getId()));
-    String dbProductName =
-        em.unwrap(Session.class)
-            .doReturningWork((connection) -> connection.getMetaData().getDatabaseProductName());
-    MapJoin<IdentityProviderEntity, String, String> configJoin = idp.joinMap("config");
-    Predicate configNamePredicate = builder.equal(configJoin.key(), configKey);
-
-    var value = exact ? configValue : "%" + configValue + "%";
-    if (dbProductName.equals("Oracle")) {
-      // TODO update this for exact match
-      Predicate configValuePredicate =
-          builder.equal(
-              builder.function(
-                  "DBMS_LOB.COMPARE", Integer.class, configJoin.value(), builder.literal(value)),
-              0);
-      predicates.add(builder.and(configNamePredicate, configValuePredicate));
-    } else {
-      if (exact) {
-        predicates.add(builder.and(configNamePredicate, builder.equal(configJoin.value(), value)));
-      } else {
-        predicates.add(builder.and(configNamePredicate, builder.like(configJoin.value(), value)));
+    return dialect
+        .createQuery(em, realm.getId(), configKey, configValue, exact)
+        .getResultStream()
+        .map(e -> toModel(e, session));
+  }
+
+  /** Identity providers owned by the organization, found through the link table. */
+  public static Stream<IdentityProviderModel> getOrganizationIdentityProvidersStream(
+      KeycloakSession session, EntityManager em, RealmModel realm, String organizationId) {
+    return em.createNamedQuery("getIdentityProvidersByOrganization", IdentityProviderEntity.class)
+        .setParameter("organizationId", organizationId)
+        .setParameter("realmId", realm.getId())
+        .getResultStream()
+        .map(e -> toModel(e, session));
+  }
+
+  /**
+   * Rewrites the organization links of the IdP from the owner, domains and shared values of its
+   * config.
+   */
+  public static void syncOrganizationLinks(KeycloakSession session, IdentityProviderModel idp) {
+    if (idp == null || idp.getInternalId() == null) return;
+    EntityManager em = session.getProvider(JpaConnectionProvider.class).getEntityManager();
+    Map<String, String> config = idp.getConfig() == null ? Map.of() : idp.getConfig();
+    Set<String> orgIds =
+        getAttributeMultivalued(config, ORG_OWNER_CONFIG_KEY).stream()
+            .map(String::trim)
+            .filter(s -> !s.isEmpty())
+            .collect(Collectors.toSet());
+    String domains = config.get(ORG_DOMAIN_CONFIG_KEY);
+    boolean shared = Boolean.parseBoolean(config.get(ORG_SHARED_IDP_KEY));
+
+    Map<String, OrganizationIdentityProviderEntity> links = new HashMap<>();
+    em.createNamedQuery(
+            "getOrganizationIdentityProvidersByIdp", OrganizationIdentityProviderEntity.class)
+        .setParameter("idpInternalId", idp.getInternalId())
+        .getResultStream()
+        .forEach(
+            l -> {
+              if (orgIds.contains(l.getOrganizationId())) links.put(l.getOrganizationId(), l);
+              else em.remove(l);
+            });
+    for (String orgId : orgIds) {
+      OrganizationIdentityProviderEntity link = links.get(orgId);
+      if (link == null) {
+        // the config can still name an organization that was removed
+        if (em.find(ExtOrganizationEntity.class, orgId) == null) continue;
+        link = new OrganizationIdentityProviderEntity();
+        link.setId(KeycloakModelUtils.generateId());
+        link.setOrganizationId(orgId);
+        link.setIdpInternalId(idp.getInternalId());
+        em.persist(link);
       }
+      link.setDomains(domains);
+      link.setShared(shared);
     }
+  }
 
-    query.orderBy(builder.asc(idp.get("alias")));
-    TypedQuery<IdentityProviderEntity> typedQuery =
-        em.createQuery(query.select(idp).where(predicates.toArray(Predicate[]::new)));
-    return typedQuery.getResultStream().map(e -> toModel(e, session));
+  /** Removes the organization links of a removed IdP. */
+  public static void removeOrganizationLinks(KeycloakSession session, String idpInternalId) {
+    session
+        .getProvider(JpaConnectionProvider.class)
+        .getEntityManager()
+        .createNamedQuery("removeOrganizationIdentityProvidersByIdp")
+        .setParameter("idpInternalId", idpInternalId)
+        .executeUpdate();
   }
 
   public static boolean isMultipleIdpsConfigEnabled(RealmModel realm) {
@@ -179,13 +219,13 @@ public final class IdentityProviders {
     if (input == null || input.isEmpty()) {
       return Collections.emptySet();
     }
-    return Arrays.stream(input.split("##"))
-        .map(String::trim)
-        .filter(s -> !s.isEmpty())
-        .collect(Collectors.toSet());
+    return ImmutableSet.copyOf(STR_LIST_SPLITTER.split(input));
   }
 
   public static boolean strListContains(String input, String match) {
-    return strListToSet(input).contains(match);
+    if (input == null || input.isEmpty()) {
+      return false;
+    }
+    return Iterables.contains(STR_LIST_SPLITTER.split(input), match);
   }
 }
@@ -0,0 +1,95 @@
+package io.phasetwo.service.model;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.empty;
+import static org.hamcrest.Matchers.is;
+
+import java.util.Set;
+import org.junit.jupiter.api.Test;
+
+class DomainRoutesTest {
+
+  private static DomainRoutes routes() {
+    return DomainRoutes.builder()
+        .domain("example.com", "org1", true)
+        .domain("Example.org", "org1", false)
+        .domain("example.com", "org2", false)
+        .identityProvider("org1", new DomainRoutes.IdentityProviderRoute("a-idp", false, Set.of()))
+        .identityProvider(
+            "org1", new DomainRoutes.IdentityProviderRoute("b-idp", true, Set.of("example.org")))
+        .identityProvider(
+            "org2", new DomainRoutes.IdentityProviderRoute("c-idp", false, Set.of("EXAMPLE.com")))
+        .build();
+  }
+
+  @Test
+  void routesDomainToIdentityProviders() {
+    DomainRoutes routes = routes();
+    assertThat(
+        routes.getIdentityProviderAliases("example.org", false, false, false),
+        contains("a-idp", "b-idp"));
+    assertThat(routes.getIdentityProviderAliases("unknown.com", false, false, false), empty());
+    assertThat(routes.getIdentityProviderAliases(null, false, false, false), empty());
+  }
+
+  @Test
+  void filtersUnverifiedDomainsAndPendingIdentityProviders() {
+    DomainRoutes routes = routes();
+    assertThat(
+        routes.getIdentityProviderAliases("EXAMPLE.COM", true, false, false),
+        contains("a-idp", "b-idp"));
+    assertThat(
+        routes.getIdentityProviderAliases("example.com", true, true, false), contains("a-idp"));
+    assertThat(routes.getIdentityProviderAliases("example.org", true, false, false), empty());
+  }
+
+  @Test
+  void prefersIdentityProvidersListingTheDomain() {
+    DomainRoutes routes = routes();
+    assertThat(
+        routes.getIdentityProviderAliases("example.com", false, false, true), contains("c-idp"));
+    assertThat(
+        routes.getIdentityProviderAliases("example.org", false, false, true), contains("b-idp"));
+    assertThat(
+        routes.getIdentityProviderAliases("example.org", false, true, true), contains("a-idp"));
+  }
+
+  @Test
+  void listsDomainAndParents() {
+    assertThat(
+        DomainRoutes.withParents("A.eu.Example.com"),
+        contains("a.eu.example.com", "eu.example.com", "example.com", "com"));
+    assertThat(DomainRoutes.withParents("localhost"), contains("localhost"));
+  }
+
+  @Test
+  void matchesParentDomains() {
+    DomainRoutes routes =
+        DomainRoutes.builder()
+            .domain("example.com", "parent", true)
+            .domain("eu.example.com", "child", false)
+            .identityProvider(
+                "parent", new DomainRoutes.IdentityProviderRoute("parent-idp", false, Set.of()))
+            .identityProvider(
+                "child", new DomainRoutes.IdentityProviderRoute("child-idp", false, Set.of()))
+            .build();
+    assertThat(
+        routes.getIdentityProviderAliases("a.b.example.com", false, false, false),
+        contains("parent-idp"));
+    assertThat(
+        routes.getIdentityProviderAliases("mail.eu.example.com", false, false, false),
+        contains("child-idp"));
+    // the child domain is unverified, so the parent answers
+    assertThat(
+        routes.getIdentityProviderAliases("mail.eu.example.com", true, false, false),
+        contains("parent-idp"));
+    assertThat(routes.getIdentityProviderAliases("notexample.com", false, false, false), empty());
+    assertThat(routes.getIdentityProviderAliases("com", false, false, false), empty());
+
+    assertThat(routes.isOwnedBy("parent", "eu.example.com", true), is(true));
+    assertThat(routes.isOwnedBy("child", "x.eu.example.com", false), is(true));
+    assertThat(routes.isOwnedBy("child", "x.eu.example.com", true), is(false));
+    assertThat(routes.isOwnedBy("child", "example.com", false), is(false));
+  }
+}
@@ -0,0 +1,48 @@
+package io.phasetwo.service.model;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.empty;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.nullValue;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.util.Date;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+
+class KeysetPageTest {
+
+  @Test
+  void roundTripsCursor() {
+    PageCursor cursor = PageCursor.decode(new PageCursor("acme\ninc", "id-1").encode());
+    assertThat(cursor.getKey(), is("acme\ninc"));
+    assertThat(cursor.getId(), is("id-1"));
+
+    Date createdAt = new Date(1700000000123L);
+    assertThat(
+        PageCursor.decode(new PageCursor(createdAt, "id-2").encode()).getKeyAsDate(),
+        is(createdAt));
+  }
+
+  @Test
+  void rejectsForeignCursor() {
+    assertThrows(IllegalArgumentException.class, () -> PageCursor.decode("not a cursor!"));
+    assertThrows(IllegalArgumentException.class, () -> PageCursor.decode("YWJj"));
+    assertThrows(IllegalArgumentException.class, () -> new PageCursor("abc", "id").getKeyAsDate());
+  }
+
+  @Test
+  void pagesFromExtraRow() {
+    KeysetPage<String> page = KeysetPage.of(List.of("a", "b", "c"), 2, s -> new PageCursor(s, s));
+    assertThat(page.getItems(), contains("a", "b"));
+    assertThat(page.getNext().getKey(), is("b"));
+
+    KeysetPage<String> last = KeysetPage.of(List.of("a", "b"), 2, s -> new PageCursor(s, s));
+    assertThat(last.getItems(), contains("a", "b"));
+    assertThat(last.getNext(), nullValue());
+
+    assertThat(KeysetPage.of(List.of("a"), 0, s -> new PageCursor(s, s)).getItems(), is(empty()));
+    assertThat(page.map(String::toUpperCase).getItems(), contains("A", "B"));
+  }
+}
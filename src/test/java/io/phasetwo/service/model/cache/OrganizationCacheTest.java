@@ -0,0 +1,162 @@
+package io.phasetwo.service.model.cache;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.notNullValue;
+import static org.hamcrest.Matchers.nullValue;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSet;
+import io.phasetwo.service.model.DomainRoutes;
+import io.phasetwo.service.model.UserOrganizationRoles;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.jupiter.api.Test;
+
+class OrganizationCacheTest {
+
+  private static CachedOrganization org(String id, String realmId, String name) {
+    return new CachedOrganization(
+        id,
+        realmId,
+        name,
+        name,
+        null,
+        ImmutableSet.of("example.com"),
+        ImmutableMap.of("foo", List.of("bar")),
+        ImmutableSet.of("view-organization"));
+  }
+
+  @Test
+  void addsAndLooksUpByIdAndName() {
+    OrganizationCache cache = new OrganizationCache(100, 60);
+    assertThat(cache.addRevisioned(org("1", "r", "acme"), cache.getCurrentRevision()), is(true));
+    assertThat(cache.get("1"), notNullValue());
+    assertThat(cache.getIdByName("r", "acme"), equalTo("1"));
+    assertThat(cache.getIdByName("other", "acme"), nullValue());
+  }
+
+  @Test
+  void rejectsLoadStartedBeforeInvalidation() {
+    OrganizationCache cache = new OrganizationCache(100, 60);
+    long revision = cache.getCurrentRevision();
+    cache.invalidate(Set.of("1"), Set.of(), Set.of());
+    assertThat(cache.addRevisioned(org("1", "r", "acme"), revision), is(false));
+    assertThat(cache.get("1"), nullValue());
+    assertThat(cache.addRevisioned(org("1", "r", "acme"), cache.getCurrentRevision()), is(true));
+  }
+
+  @Test
+  void invalidatesWholeRealm() {
+    OrganizationCache cache = new OrganizationCache(100, 60);
+    cache.addRevisioned(org("1", "r", "acme"), cache.getCurrentRevision());
+    cache.addRevisioned(org("2", "s", "acme"), cache.getCurrentRevision());
+    long revision = cache.getCurrentRevision();
+    cache.invalidate(Set.of(), Set.of("r"), Set.of());
+    assertThat(cache.get("1"), nullValue());
+    assertThat(cache.getIdByName("r", "acme"), nullValue());
+    assertThat(cache.get("2"), notNullValue());
+    assertThat(cache.addRevisioned(org("3", "r", "other"), revision), is(false));
+  }
+
+  @Test
+  void invalidatesUserMemberships() {
+    OrganizationCache cache = new OrganizationCache(100, 60);
+    List<UserOrganizationRoles> roles =
+        List.of(new UserOrganizationRoles("1", "acme", null, null, List.of("view-organization")));
+    long revision = cache.getCurrentRevision();
+    cache.addUserOrganizationRolesRevisioned("r", "u", roles, revision);
+    assertThat(cache.getUserOrganizationRoles("r", "u"), equalTo(roles));
+
+    cache.invalidate(Set.of(), Set.of(), Set.of(OrganizationCache.userKey("r", "u")));
+    assertThat(cache.getUserOrganizationRoles("r", "u"), nullValue());
+    assertThat(cache.addUserOrganizationRolesRevisioned("r", "u", roles, revision), is(false));
+
+    // renaming or removing an organization drops the memberships that reference it
+    cache.addUserOrganizationRolesRevisioned("r", "u", roles, cache.getCurrentRevision());
+    cache.invalidate(Set.of("1"), Set.of(), Set.of());
+    assertThat(cache.getUserOrganizationRoles("r", "u"), nullValue());
+  }
+
+  @Test
+  void invalidatesDomainRoutes() {
+    OrganizationCache cache = new OrganizationCache(100, 60);
+    DomainRoutes routes = DomainRoutes.builder().domain("example.com", "1", true).build();
+    long revision = cache.getCurrentRevision();
+    assertThat(cache.addDomainRoutesRevisioned("r", routes, revision), is(true));
+    assertThat(cache.getDomainRoutes("r"), equalTo(routes));
+
+    cache.invalidate(Set.of(), Set.of(), Set.of(), Set.of("r"));
+    assertThat(cache.getDomainRoutes("r"), nullValue());
+    assertThat(cache.addDomainRoutesRevisioned("r", routes, revision), is(false));
+
+    // removing all organizations of the realm drops its routes too
+    cache.addDomainRoutesRevisioned("r", routes, cache.getCurrentRevision());
+    cache.invalidate(Set.of(), Set.of("r"), Set.of());
+    assertThat(cache.getDomainRoutes("r"), nullValue());
+  }
+
+  @Test
+  void reloadsDomainRoutesInUseInTheBackground() {
+    OrganizationCache cache = new OrganizationCache(100, 60, 10);
+    List<Runnable> tasks = new ArrayList<>();
+    AtomicInteger loads = new AtomicInteger();
+    cache.setDomainRoutesLoader(
+        tasks::add,
+        realmId -> {
+          loads.incrementAndGet();
+          return DomainRoutes.builder().domain("example.com", "1", true).build();
+        });
+
+    // one load per realm, however many lookups miss
+    cache.loadDomainRoutes("r");
+    cache.loadDomainRoutes("r");
+    assertThat(tasks.size(), is(1));
+    tasks.remove(0).run();
+    assertThat(loads.get(), is(1));
+    assertThat(cache.getDomainRoutes("r"), notNullValue());
+
+    // a change drops the table and loads it again
+    cache.invalidate(Set.of(), Set.of(), Set.of(), Set.of("r"));
+    assertThat(cache.getDomainRoutes("r"), nullValue());
+    assertThat(tasks.size(), is(1));
+    tasks.remove(0).run();
+    assertThat(loads.get(), is(2));
+    assertThat(cache.getDomainRoutes("r"), notNullValue());
+
+    // realms without a table aren't loaded on a change
+    cache.invalidate(Set.of(), Set.of(), Set.of(), Set.of("other"));
+    assertThat(tasks.size(), is(0));
+  }
+
+  @Test
+  void reloadsDomainRoutesOvertakenByAChange() {
+    OrganizationCache cache = new OrganizationCache(100, 60, 10);
+    AtomicInteger loads = new AtomicInteger();
+    cache.setDomainRoutesLoader(
+        Runnable::run,
+        realmId -> {
+          // the first load races with a change
+          if (loads.incrementAndGet() == 1) {
+            cache.invalidate(Set.of(), Set.of(), Set.of(), Set.of(realmId));
+          }
+          return DomainRoutes.builder().domain("example.com", "1", true).build();
+        });
+
+    cache.loadDomainRoutes("r");
+    assertThat(loads.get(), is(2));
+    assertThat(cache.getDomainRoutes("r"), notNullValue());
+  }
+
+  @Test
+  void snapshotIsImmutable() {
+    CachedOrganization org = org("1", "r", "acme");
+    assertThrows(
+        UnsupportedOperationException.class, () -> org.getAttributes().get("foo").add("x"));
+    assertThrows(UnsupportedOperationException.class, () -> org.getDomains().add("example.org"));
+  }
+}
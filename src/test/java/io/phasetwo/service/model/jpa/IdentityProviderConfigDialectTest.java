@@ -0,0 +1,37 @@
+package io.phasetwo.service.model.jpa;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+
+import org.junit.jupiter.api.Test;
+
+class IdentityProviderConfigDialectTest {
+
+  @Test
+  void resolvesDialectFromProductName() {
+    assertThat(
+        IdentityProviderConfigDialect.forProductName("PostgreSQL"),
+        is(IdentityProviderConfigDialect.POSTGRESQL));
+    assertThat(
+        IdentityProviderConfigDialect.forProductName("CockroachDB"),
+        is(IdentityProviderConfigDialect.COCKROACHDB));
+    assertThat(
+        IdentityProviderConfigDialect.forProductName("MySQL"),
+        is(IdentityProviderConfigDialect.MYSQL));
+    assertThat(
+        IdentityProviderConfigDialect.forProductName("MariaDB"),
+        is(IdentityProviderConfigDialect.MYSQL));
+    assertThat(
+        IdentityProviderConfigDialect.forProductName("Oracle"),
+        is(IdentityProviderConfigDialect.ORACLE));
+    assertThat(
+        IdentityProviderConfigDialect.forProductName("Microsoft SQL Server"),
+        is(IdentityProviderConfigDialect.MSSQL));
+    assertThat(
+        IdentityProviderConfigDialect.forProductName("H2"),
+        is(IdentityProviderConfigDialect.DEFAULT));
+    assertThat(
+        IdentityProviderConfigDialect.forProductName(null),
+        is(IdentityProviderConfigDialect.DEFAULT));
+  }
+}
@@ -15,10 +15,14 @@ import java.nio.file.Files;
 import java.nio.file.Path;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
 import lombok.extern.jbosslog.JBossLog;
 import org.jboss.shrinkwrap.resolver.api.maven.Maven;
 import org.junit.jupiter.api.AfterAll;
 import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Tag;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.TestInstance;
 import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
@@ -147,6 +151,158 @@ abstract class AbstractDbCompatibilityTest {
         is(true));
   }
 
+  @Test
+  void searchOrganizationsByMode() throws Exception {
+    KeycloakOrgsAdminAPI orgsApi =
+        new KeycloakOrgsAdminAPI(keycloak.getAuthServerUrl(), REALM, adminClient);
+
+    List<String> ids = new ArrayList<>();
+    for (String name : List.of("smoke-mode-alpha", "smoke-mode-alphabet", "other-smoke-mode")) {
+      ids.add(orgsApi.createOrganization(new OrganizationRepresentation().name(name)).getId());
+    }
+
+    assertThat(searchOrganizations("smoke-mode", "contains").size(), is(3));
+    assertThat(searchOrganizations("smoke-mode", "prefix").size(), is(2));
+    assertThat(searchOrganizations("SMOKE-MODE-ALPHA", "prefix").size(), is(2));
+    // ranked by similarity where pg_trgm is available, a contains search elsewhere
+    List<?> fuzzy = searchOrganizations("smoke-mode-alpha", "fuzzy");
+    assertThat(fuzzy.size() >= 2, is(true));
+    assertThat(countOrganizations("smoke-mode", "prefix"), is(2));
+
+    given()
+        .baseUri(keycloak.getAuthServerUrl())
+        .basePath("realms/" + REALM + "/orgs")
+        .auth()
+        .oauth2(adminClient.tokenManager().getAccessTokenString())
+        .queryParam("search", "smoke-mode")
+        .queryParam("searchMode", "regex")
+        .get()
+        .then()
+        .statusCode(Status.BAD_REQUEST.getStatusCode());
+
+    for (String id : ids) {
+      given()
+          .baseUri(keycloak.getAuthServerUrl())
+          .basePath("realms/" + REALM + "/orgs")
+          .auth()
+          .oauth2(adminClient.tokenManager().getAccessTokenString())
+          .delete(id)
+          .then()
+          .statusCode(Status.NO_CONTENT.getStatusCode());
+    }
+  }
+
+  /**
+   * Compares end to end request times of a name search served by its named query with the same
+   * search through the criteria query. An attribute filter that all organizations match sends the
+   * search down the criteria path, which adds an EXISTS subquery, so this is not a measure of query
+   * building alone; the HTTP round trip dominates both numbers. Timings are logged rather than
+   * asserted, as they depend on the machine.
+   *
+   * <p>Not part of the compatibility suite. Run it with {@code -Pintegration-tests
+   * -Dinclude.benchmark=true}.
+   */
+  @Test
+  @Tag("benchmark")
+  @EnabledIfSystemProperty(named = "include.benchmark", matches = "true")
+  void benchmarkNamedOrganizationSearch() throws Exception {
+    KeycloakOrgsAdminAPI orgsApi =
+        new KeycloakOrgsAdminAPI(keycloak.getAuthServerUrl(), REALM, adminClient);
+
+    List<String> ids = new ArrayList<>();
+    for (int i = 0; i < 50; i++) {
+      ids.add(
+          orgsApi
+              .createOrganization(
+                  new OrganizationRepresentation()
+                      .name("bench-org-" + i)
+                      .attributes(Map.of("bench", List.of("true"))))
+              .getId());
+    }
+
+    Map<String, String> named = Map.of("search", "bench-org", "max", "100");
+    Map<String, String> criteria = Map.of("search", "bench-org", "q", "bench:true", "max", "100");
+    assertThat(searchOrganizationIds(criteria), is(searchOrganizationIds(named)));
+    assertThat(searchOrganizationIds(named).size(), is(50));
+
+    int warmup = 50;
+    int runs = 500;
+    long namedNanos = 0;
+    long criteriaNanos = 0;
+    for (int i = 0; i < warmup + runs; i++) {
+      long start = System.nanoTime();
+      searchOrganizationIds(named);
+      long middle = System.nanoTime();
+      searchOrganizationIds(criteria);
+      long end = System.nanoTime();
+      if (i >= warmup) {
+        namedNanos += middle - start;
+        criteriaNanos += end - middle;
+      }
+    }
+    log.infof(
+        "Organization name search on %s over %d runs: named query %.2f ms, criteria query %.2f ms",
+        getDbVendor(), runs, namedNanos / 1e6 / runs, criteriaNanos / 1e6 / runs);
+
+    for (String id : ids) {
+      given()
+          .baseUri(keycloak.getAuthServerUrl())
+          .basePath("realms/" + REALM + "/orgs")
+          .auth()
+          .oauth2(adminClient.tokenManager().getAccessTokenString())
+          .delete(id)
+          .then()
+          .statusCode(Status.NO_CONTENT.getStatusCode());
+    }
+  }
+
+  private Set<String> searchOrganizationIds(Map<String, String> queryParams) {
+    List<Map<String, Object>> orgs =
+        given()
+            .baseUri(keycloak.getAuthServerUrl())
+            .basePath("realms/" + REALM + "/orgs")
+            .auth()
+            .oauth2(adminClient.tokenManager().getAccessTokenString())
+            .queryParams(queryParams)
+            .get()
+            .then()
+            .statusCode(Status.OK.getStatusCode())
+            .extract()
+            .jsonPath()
+            .getList("$");
+    return orgs.stream().map(o -> (String) o.get("id")).collect(Collectors.toSet());
+  }
+
+  private List<?> searchOrganizations(String search, String searchMode) {
+    return given()
+        .baseUri(keycloak.getAuthServerUrl())
+        .basePath("realms/" + REALM + "/orgs")
+        .auth()
+        .oauth2(adminClient.tokenManager().getAccessTokenString())
+        .queryParam("search", search)
+        .queryParam("searchMode", searchMode)
+        .get()
+        .then()
+        .statusCode(Status.OK.getStatusCode())
+        .extract()
+        .as(List.class);
+  }
+
+  private int countOrganizations(String search, String searchMode) {
+    return given()
+        .baseUri(keycloak.getAuthServerUrl())
+        .basePath("realms/" + REALM + "/orgs")
+        .auth()
+        .oauth2(adminClient.tokenManager().getAccessTokenString())
+        .queryParam("search", search)
+        .queryParam("searchMode", searchMode)
+        .get("count")
+        .then()
+        .statusCode(Status.OK.getStatusCode())
+        .extract()
+        .as(Integer.class);
+  }
+
   private KeycloakContainer buildKeycloakContainer() {
     KeycloakContainer kc =
         new KeycloakContainer(KEYCLOAK_IMAGE)
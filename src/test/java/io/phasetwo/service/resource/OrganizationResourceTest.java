@@ -292,6 +292,17 @@ class OrganizationResourceTest extends AbstractOrganizationTest {
     assertThat(orgs, notNullValue());
     assertThat(orgs, hasSize(1));
 
+    // multiple attribute filters must all match, each on its own attribute
+    response = givenSpec().when().queryParam("q", "foo:bar foo2:bar2").get().andReturn();
+    assertThat(response.statusCode(), is(Status.OK.getStatusCode()));
+    orgs = objectMapper().readValue(response.getBody().asString(), new TypeReference<>() {});
+    assertThat(orgs, hasSize(1));
+
+    response = givenSpec().when().queryParam("q", "foo:bar foo3:bar3").get().andReturn();
+    assertThat(response.statusCode(), is(Status.OK.getStatusCode()));
+    orgs = objectMapper().readValue(response.getBody().asString(), new TypeReference<>() {});
+    assertThat(orgs, hasSize(0));
+
     // orgs count
     response = getRequest("count");
     assertThat(response.statusCode(), is(Status.OK.getStatusCode()));
@@ -2363,6 +2374,43 @@ class OrganizationResourceTest extends AbstractOrganizationTest {
     deleteUser(keycloak, REALM, user2.getId());
   }
 
+  @Test
+  void testSearchMembersBriefRepresentation() throws IOException {
+    OrganizationRepresentation org = createDefaultOrg();
+    String id = org.getId();
+
+    UserRepresentation user1 = createUser(keycloak, REALM, "johndoe");
+    UserRepresentation user2 = createUser(keycloak, REALM, "johndow");
+
+    Response response = putRequest("foo", org.getId(), "members", user1.getId());
+    assertThat(response.getStatusCode(), is(Status.CREATED.getStatusCode()));
+    response = putRequest("foo", org.getId(), "members", user2.getId());
+    assertThat(response.getStatusCode(), is(Status.CREATED.getStatusCode()));
+
+    response = getRequest(id, "members?briefRepresentation=true&excludeAdminAccounts=true");
+    assertThat(response.statusCode(), is(Status.OK.getStatusCode()));
+    List<UserRepresentation> members =
+        objectMapper().readValue(response.getBody().asString(), new TypeReference<>() {});
+    assertThat(members, hasSize(2));
+
+    response = getRequest(id, "members?briefRepresentation=true&search=johndoe");
+    assertThat(response.statusCode(), is(Status.OK.getStatusCode()));
+    members = objectMapper().readValue(response.getBody().asString(), new TypeReference<>() {});
+    assertThat(members, hasSize(1));
+    assertThat(members.get(0).getId(), is(user1.getId()));
+    assertThat(members.get(0).getUsername(), is("johndoe"));
+
+    response = getRequest(id, "members?briefRepresentation=true&first=0&max=1");
+    assertThat(response.statusCode(), is(Status.OK.getStatusCode()));
+    members = objectMapper().readValue(response.getBody().asString(), new TypeReference<>() {});
+    assertThat(members, hasSize(1));
+
+    // delete org
+    deleteOrganization(id);
+    deleteUser(keycloak, REALM, user1.getId());
+    deleteUser(keycloak, REALM, user2.getId());
+  }
+
   @Test
   void testCountMembersWithExcludeAdminParameter() throws IOException {
     OrganizationRepresentation org = createDefaultOrg();
@@ -2696,4 +2744,206 @@ class OrganizationResourceTest extends AbstractOrganizationTest {
       throw e;
     }
   }
+
+  private static final String ORGS_CLAIM_CLIENT = "test-orgs-claim";
+
+  private void setTrustTokenOrgRoles(boolean enabled, int maxAgeInSecs)
+      throws JsonProcessingException {
+    var orgConfig = new OrganizationsConfig();
+    orgConfig.setTrustTokenOrgRolesEnabled(enabled);
+    orgConfig.setTrustTokenOrgRolesMaxAgeInSecs(maxAgeInSecs);
+    var response = putRequest(orgConfig, getAuthUrl() + "/realms/" + REALM + "/orgs/config");
+    assertThat(response.getStatusCode(), is(Status.OK.getStatusCode()));
+  }
+
+  private void createOrgsClaimClient() throws JsonProcessingException {
+    createPublicClient(ORGS_CLAIM_CLIENT);
+    createClientScope(ORGS_CLAIM_CLIENT);
+    addMapperToClientScope(
+        ORGS_CLAIM_CLIENT, "organizations", "JSON", "oidc-organization-role-mapper", Map.of());
+    addClientScopeToClient(ORGS_CLAIM_CLIENT, ORGS_CLAIM_CLIENT);
+  }
+
+  private void deleteOrgsClaimClient() throws JsonProcessingException {
+    deleteClient(ORGS_CLAIM_CLIENT);
+    deleteClientScope(ORGS_CLAIM_CLIENT);
+  }
+
+  /**
+   * Creates a member of a new organization holding the view-members role, logs it in with a token
+   * carrying the organizations claim, then revokes the role in the database, and returns the status
+   * of a members listing made with that token.
+   */
+  private int listMembersAfterRevokingTokenRole(boolean trusted, int maxAgeInSecs, long waitMillis)
+      throws Exception {
+    setTrustTokenOrgRoles(trusted, maxAgeInSecs);
+    createOrgsClaimClient();
+    UserRepresentation user = createUserWithCredentials(keycloak, REALM, "claim-user", "pass");
+    try {
+      String orgId = createDefaultOrg().getId();
+      Response response = putRequest("foo", orgId, "members", user.getId());
+      assertThat(response.getStatusCode(), is(Status.CREATED.getStatusCode()));
+      grantUserRole(orgId, OrganizationAdminAuth.ORG_ROLE_VIEW_MEMBERS, user.getId());
+
+      Keycloak kc = getKeycloak(REALM, ORGS_CLAIM_CLIENT, "claim-user", "pass");
+      AccessToken token =
+          TokenVerifier.create(kc.tokenManager().getAccessTokenString(), AccessToken.class)
+              .getToken();
+      assertThat((Map<String, Object>) token.getOtherClaims().get("organizations"), hasKey(orgId));
+
+      revokeUserRole(orgId, OrganizationAdminAuth.ORG_ROLE_VIEW_MEMBERS, user.getId());
+      Thread.sleep(waitMillis);
+      return getRequest(kc, orgId, "members").getStatusCode();
+    } finally {
+      setTrustTokenOrgRoles(false, 60);
+      deleteUser(keycloak, REALM, user.getId());
+      deleteOrgsClaimClient();
+    }
+  }
+
+  @Test
+  void testTrustTokenOrgRolesUsesFreshToken() throws Exception {
+    // the revoked role is still in the token, which is trusted
+    assertThat(listMembersAfterRevokingTokenRole(true, 60, 0), is(Status.OK.getStatusCode()));
+  }
+
+  @Test
+  void testTrustTokenOrgRolesIgnoresStaleToken() throws Exception {
+    // the token is older than the max age, so the database answers
+    assertThat(
+        listMembersAfterRevokingTokenRole(true, 1, 2500), is(Status.UNAUTHORIZED.getStatusCode()));
+  }
+
+  @Test
+  void testTrustTokenOrgRolesDisabled() throws Exception {
+    assertThat(
+        listMembersAfterRevokingTokenRole(false, 60, 0), is(Status.UNAUTHORIZED.getStatusCode()));
+  }
+
+  @Test
+  void testTrustTokenOrgRolesOrgMissingFromClaim() throws Exception {
+    setTrustTokenOrgRoles(true, 60);
+    createOrgsClaimClient();
+    UserRepresentation user = createUserWithCredentials(keycloak, REALM, "claim-user", "pass");
+    try {
+      String org1Id = createDefaultOrg().getId();
+      Response response = putRequest("foo", org1Id, "members", user.getId());
+      assertThat(response.getStatusCode(), is(Status.CREATED.getStatusCode()));
+      Keycloak kc = getKeycloak(REALM, ORGS_CLAIM_CLIENT, "claim-user", "pass");
+      kc.tokenManager().getAccessTokenString();
+
+      // joined after the token was issued, so only the database knows about it
+      String org2Id =
+          createOrganization(
+                  new OrganizationRepresentation().name("org-2").domains(List.of("org2.com")))
+              .getId();
+      response = putRequest("foo", org2Id, "members", user.getId());
+      assertThat(response.getStatusCode(), is(Status.CREATED.getStatusCode()));
+      grantUserRole(org2Id, OrganizationAdminAuth.ORG_ROLE_VIEW_MEMBERS, user.getId());
+
+      response = getRequest(kc, org2Id, "members");
+      assertThat(response.getStatusCode(), is(Status.OK.getStatusCode()));
+      response = getRequest(kc, org1Id, "members");
+      assertThat(response.getStatusCode(), is(Status.UNAUTHORIZED.getStatusCode()));
+    } finally {
+      setTrustTokenOrgRoles(false, 60);
+      deleteUser(keycloak, REALM, user.getId());
+      deleteOrgsClaimClient();
+    }
+  }
+
+  /** Ids of a listing, read by following its next cursor two items at a time. */
+  private List<String> walkPages(String... paths) throws IOException {
+    List<String> ids = new ArrayList<>();
+    String cursor = "";
+    int pages = 0;
+    while (cursor != null) {
+      Response response =
+          givenSpec(paths).when().queryParam("max", 2).queryParam("cursor", cursor).get();
+      assertThat(response.getStatusCode(), is(Status.OK.getStatusCode()));
+      objectMapper()
+          .readTree(response.getBody().asString())
+          .forEach(n -> ids.add(n.get("id").asText()));
+      cursor = response.getHeader("X-Next-Cursor");
+      assertTrue(++pages < 20);
+    }
+    assertTrue(pages > 1);
+    return ids;
+  }
+
+  private List<String> listIds(String... paths) throws IOException {
+    Response response = givenSpec(paths).when().queryParam("max", 100).get();
+    assertThat(response.getStatusCode(), is(Status.OK.getStatusCode()));
+    List<String> ids = new ArrayList<>();
+    objectMapper()
+        .readTree(response.getBody().asString())
+        .forEach(n -> ids.add(n.get("id").asText()));
+    return ids;
+  }
+
+  @Test
+  void testCursorPaging() throws IOException {
+    List<String> userIds = new ArrayList<>();
+    String orgId = null;
+    for (int i = 0; i < 5; i++) {
+      orgId =
+          createOrganization(
+                  new OrganizationRepresentation()
+                      .name("paging-" + i)
+                      .domains(List.of("paging" + i + ".com")))
+              .getId();
+    }
+    for (int i = 0; i < 5; i++) {
+      UserRepresentation user = createUser(keycloak, REALM, "paging-user-" + i);
+      userIds.add(user.getId());
+      Response response = putRequest("foo", orgId, "members", user.getId());
+      assertThat(response.getStatusCode(), is(Status.CREATED.getStatusCode()));
+      response =
+          postRequest(
+              new InvitationRequestRepresentation().email("paging-invite" + i + "@example.com"),
+              orgId,
+              "invitations");
+      assertThat(response.getStatusCode(), is(Status.CREATED.getStatusCode()));
+    }
+
+    try {
+      String[] orgsPath = {"orgs"};
+      String[] membersPath = {"orgs", orgId, "members"};
+      String[] invitationsPath = {"orgs", orgId, "invitations"};
+      for (String[] path : List.of(orgsPath, membersPath, invitationsPath)) {
+        List<String> walked = walkPages(path);
+        assertThat(new HashSet<>(walked).size(), is(walked.size()));
+        assertThat(walked, containsInAnyOrder(listIds(path).toArray()));
+      }
+
+      // a cursor from the name ordered organizations listing isn't valid for members
+      String nameCursor =
+          givenSpec(orgsPath)
+              .when()
+              .queryParam("max", 1)
+              .queryParam("cursor", "")
+              .get()
+              .getHeader("X-Next-Cursor");
+      assertNotNull(nameCursor);
+      for (String[] path : List.of(membersPath, invitationsPath)) {
+        Response response = givenSpec(path).when().queryParam("cursor", nameCursor).get();
+        assertThat(response.getStatusCode(), is(Status.BAD_REQUEST.getStatusCode()));
+      }
+
+      // browser clients can read the next cursor
+      Response response =
+          givenSpec(orgsPath)
+              .header("Origin", "http://localhost:3000")
+              .when()
+              .queryParam("max", 1)
+              .queryParam("cursor", "")
+              .get();
+      assertThat(
+          response.getHeader("Access-Control-Expose-Headers"), containsString("X-Next-Cursor"));
+    } finally {
+      for (String userId : userIds) {
+        deleteUser(keycloak, REALM, userId);
+      }
+    }
+  }
 }